@@ -3,6 +3,7 @@ import com.vanniktech.maven.publish.SonatypeHost
 plugins {
     id("java")
     id("com.vanniktech.maven.publish") version "0.30.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 java {
@@ -23,12 +24,21 @@ dependencies {
 
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation("com.h2database:h2:2.2.224")
 }
 
 tasks.test {
     useJUnitPlatform()
 }
 
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc", "com.shings.excelmaker.benchmark.PeakHeapProfiler")
+    resultFormat = "JSON"
+    // ./gradlew jmh -PjmhIncludes=CsvMakerBenchmark runs a subset of the benchmarks.
+    (project.findProperty("jmhIncludes") as String?)?.let { includes = listOf(it) }
+}
+
 mavenPublishing {
     coordinates(
         groupId = "io.github.shin-gs",
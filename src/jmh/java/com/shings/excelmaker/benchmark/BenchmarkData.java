@@ -0,0 +1,83 @@
+package com.shings.excelmaker.benchmark;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic row data shared by the benchmarks. Rows are built once per trial so only generation is measured.
+ */
+final class BenchmarkData {
+    private static final String[] STATUSES = {"ACTIVE", "INACTIVE", "PENDING", "CLOSED"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Plain alphanumeric cells: ids, codes, amounts and a low-cardinality status column.
+     */
+    static List<List<String>> plainRows(int rows, int columns) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<List<String>> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            List<String> row = new ArrayList<>(columns);
+            for (int column = 0; column < columns; column++) {
+                switch (column % 4) {
+                    case 0 -> row.add(String.valueOf(i));
+                    case 1 -> row.add(Long.toHexString(random.nextLong()));
+                    case 2 -> row.add(String.valueOf(random.nextInt(1_000_000)));
+                    default -> row.add(STATUSES[random.nextInt(STATUSES.length)]);
+                }
+            }
+            result.add(List.copyOf(row));
+        }
+
+        return result;
+    }
+
+    /**
+     * Free-text cells where most values contain a delimiter, a quote or a line break and must be quoted in CSV.
+     */
+    static List<List<String>> quotedRows(int rows, int columns) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<List<String>> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            List<String> row = new ArrayList<>(columns);
+            for (int column = 0; column < columns; column++) {
+                switch (random.nextInt(4)) {
+                    case 0 -> row.add("Seoul, Korea #" + i);
+                    case 1 -> row.add("said \"hello\" " + random.nextInt(1000));
+                    case 2 -> row.add("line one\nline two " + column);
+                    default -> row.add("memo " + Long.toHexString(random.nextLong()));
+                }
+            }
+            result.add(List.copyOf(row));
+        }
+
+        return result;
+    }
+
+    static List<String> header(int columns) {
+        List<String> header = new ArrayList<>(columns);
+        for (int column = 0; column < columns; column++) {
+            header.add("column" + column);
+        }
+
+        return header;
+    }
+
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
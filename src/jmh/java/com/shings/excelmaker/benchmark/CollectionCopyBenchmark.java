@@ -0,0 +1,52 @@
+package com.shings.excelmaker.benchmark;
+
+import com.shings.excelmaker.util.CollectionCopyUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CollectionCopyUtils#nullSafeCopyOf(List)} on the row lists every maker copies at build time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionCopyBenchmark {
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"0", "10"})
+    public int nullPercent;
+
+    private List<List<String>> source;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<List<String>> rows = BenchmarkData.plainRows(Math.min(size, 1000), 4);
+        source = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            source.add(i % 100 < nullPercent ? null : rows.get(i % rows.size()));
+        }
+    }
+
+    @Benchmark
+    public List<List<String>> nullSafeCopyOf() {
+        return CollectionCopyUtils.nullSafeCopyOf(source);
+    }
+}
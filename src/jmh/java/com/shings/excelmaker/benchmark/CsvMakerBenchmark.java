@@ -0,0 +1,86 @@
+package com.shings.excelmaker.benchmark;
+
+import com.shings.excelmaker.CsvMaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV generation for plain and heavily quoted content, narrow (8) and wide (64) rows,
+ * written sequentially, with parallel encoding, and as gzip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CsvMakerBenchmark {
+    public enum Content {
+        PLAIN, QUOTED
+    }
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"8", "64"})
+    public int columns;
+
+    @Param({"PLAIN", "QUOTED"})
+    public Content content;
+
+    private List<List<String>> data;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = content == Content.PLAIN ? BenchmarkData.plainRows(rows, columns) : BenchmarkData.quotedRows(rows, columns);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public long sequential() {
+        return write(builder());
+    }
+
+    @Benchmark
+    public long parallelEncoding() {
+        return write(builder().parallelEncoding(pool));
+    }
+
+    @Benchmark
+    public long gzip() {
+        return write(builder().gzip());
+    }
+
+    private CsvMaker.Builder builder() {
+        return CsvMaker.builder("benchmark.csv")
+                .row(BenchmarkData.header(columns))
+                .rows(data);
+    }
+
+    private static long write(CsvMaker.Builder builder) {
+        BenchmarkData.CountingOutputStream out = new BenchmarkData.CountingOutputStream();
+        builder.build().write(out);
+        return out.count;
+    }
+}
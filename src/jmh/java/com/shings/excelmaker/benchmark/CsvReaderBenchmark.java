@@ -0,0 +1,113 @@
+package com.shings.excelmaker.benchmark;
+
+import com.shings.excelmaker.CsvMaker;
+import com.shings.excelmaker.CsvReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading {@link CsvMaker} output back with {@link CsvReader}: scanning records only, decoding every cell,
+ * and scanning split across cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CsvReaderBenchmark {
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"8", "64"})
+    public int columns;
+
+    @Param({"PLAIN", "QUOTED"})
+    public CsvMakerBenchmark.Content content;
+
+    private Path file;
+    private CsvReader reader;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<List<String>> data = content == CsvMakerBenchmark.Content.PLAIN
+                ? BenchmarkData.plainRows(rows, columns)
+                : BenchmarkData.quotedRows(rows, columns);
+        file = Files.createTempFile("excelmaker-benchmark", ".csv");
+        CsvMaker.builder("benchmark.csv")
+                .row(BenchmarkData.header(columns))
+                .rows(data)
+                .build()
+                .toPath(file);
+
+        reader = CsvReader.builder(file).header(true).build();
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdownNow();
+        reader.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long scan() {
+        return countCells(reader.cursor());
+    }
+
+    @Benchmark
+    public long decode() {
+        CsvReader.Cursor cursor = reader.cursor();
+        long length = 0;
+        while (cursor.next()) {
+            for (int i = 0; i < cursor.getCellCount(); i++) {
+                length += cursor.getText(i).length();
+            }
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long splitScan() {
+        List<ForkJoinTask<Long>> parts = new ArrayList<>();
+        for (CsvReader.Cursor cursor : reader.split(pool, pool.getParallelism())) {
+            parts.add(pool.submit(() -> countCells(cursor)));
+        }
+
+        long cells = 0;
+        for (ForkJoinTask<Long> part : parts) {
+            cells += part.join();
+        }
+        return cells;
+    }
+
+    private static long countCells(CsvReader.Cursor cursor) {
+        long cells = 0;
+        while (cursor.next()) {
+            cells += cursor.getCellCount();
+        }
+        return cells;
+    }
+}
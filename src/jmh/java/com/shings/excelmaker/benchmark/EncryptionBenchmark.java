@@ -0,0 +1,65 @@
+package com.shings.excelmaker.benchmark;
+
+import com.shings.excelmaker.XlsxMaker;
+import com.shings.excelmaker.xlsx.XlsxEncryptionStaging;
+import com.shings.excelmaker.xlsx.XlsxSheet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Compares the two encryption staging modes on a password-protected workbook of roughly 100 MB.
+ * Run with {@code ./gradlew jmh}; {@link PeakHeapProfiler} reports the peak heap as {@code peak.heap} next to the
+ * gc profiler's allocation figures.
+ * The MEMORY mode needs a heap of at least 1 GB at the default row count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EncryptionBenchmark {
+    @Param({"TEMP_FILE", "MEMORY"})
+    public XlsxEncryptionStaging staging;
+
+    @Param({"1500000"})
+    public int rows;
+
+    @Benchmark
+    public long encryptedWorkbook() {
+        BenchmarkData.CountingOutputStream out = new BenchmarkData.CountingOutputStream();
+        XlsxMaker.builder("encrypted.xlsx")
+                .password("benchmark")
+                .encryptionStaging(staging)
+                .sheet(XlsxSheet.builder("Data")
+                        .header(List.of("id", "code", "memo", "amount", "status"))
+                        .rowSource(randomRows(rows))
+                        .build())
+                .build()
+                .write(out);
+
+        return out.count;
+    }
+
+    // Random hex keeps the compressed output close to the target size.
+    static Stream<List<String>> randomRows(int rows) {
+        SplittableRandom random = new SplittableRandom(42);
+        return IntStream.range(0, rows).mapToObj(i -> List.of(
+                String.valueOf(i),
+                Long.toHexString(random.nextLong()),
+                Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()),
+                String.valueOf(random.nextInt(1_000_000)),
+                random.nextBoolean() ? "ACTIVE" : "INACTIVE"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.shings.excelmaker.benchmark;
+
+import com.shings.excelmaker.ByteSegments;
+import com.shings.excelmaker.CsvMaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output targets of {@code AbstractMaker} for the same CSV content: a byte array, byte segments and a file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OutputBenchmark {
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private CsvMaker maker;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        maker = CsvMaker.builder("benchmark.csv")
+                .row(BenchmarkData.header(8))
+                .rows(BenchmarkData.plainRows(rows, 8))
+                .build();
+        target = Files.createTempFile("excelmaker-benchmark", ".csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return maker.toBytes();
+    }
+
+    @Benchmark
+    public ByteSegments toByteSegments() {
+        return maker.toByteSegments();
+    }
+
+    @Benchmark
+    public long toPath() throws IOException {
+        maker.toPath(target);
+        return Files.size(target);
+    }
+}
@@ -0,0 +1,104 @@
+package com.shings.excelmaker.benchmark;
+
+import com.shings.excelmaker.XlsxMaker;
+import com.shings.excelmaker.xlsx.XlsxEngine;
+import com.shings.excelmaker.xlsx.XlsxSheet;
+import com.shings.excelmaker.xlsx.XlsxSheetCell;
+import com.shings.excelmaker.xlsx.attribute.XlsxBorder;
+import com.shings.excelmaker.xlsx.attribute.XlsxColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XLSX generation on both engines for single and multi-sheet workbooks, with plain and styled headers,
+ * and password protection. Encryption always runs on the POI engine, so {@code encrypted} is the same for both engines.
+ * The large-workbook encryption staging comparison lives in {@link EncryptionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class XlsxMakerBenchmark {
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"8", "32"})
+    public int columns;
+
+    @Param({"1", "4"})
+    public int sheets;
+
+    @Param({"POI", "NATIVE"})
+    public XlsxEngine engine;
+
+    private List<List<String>> data;
+    private List<XlsxSheetCell> styledHeader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = BenchmarkData.plainRows(rows, columns);
+
+        styledHeader = new ArrayList<>(columns);
+        XlsxColor[] colors = {XlsxColor.YELLOW, XlsxColor.GREEN, XlsxColor.GREY};
+        for (String text : BenchmarkData.header(columns)) {
+            styledHeader.add(XlsxSheetCell.builder(text)
+                    .backgroundColor(colors[styledHeader.size() % colors.length])
+                    .fontColor(XlsxColor.BLACK)
+                    .border(XlsxBorder.THIN)
+                    .columnWidth(4000)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public long plainHeader() {
+        XlsxMaker.Builder builder = XlsxMaker.builder("benchmark.xlsx").engine(engine);
+        for (int i = 0; i < sheets; i++) {
+            builder.sheet(XlsxSheet.builder("Sheet" + i).header(BenchmarkData.header(columns)).rows(data).build());
+        }
+
+        return write(builder);
+    }
+
+    @Benchmark
+    public long styledHeader() {
+        XlsxMaker.Builder builder = XlsxMaker.builder("benchmark.xlsx").engine(engine);
+        for (int i = 0; i < sheets; i++) {
+            builder.sheet(XlsxSheet.builder("Sheet" + i).headerStyled(styledHeader).rows(data).build());
+        }
+
+        return write(builder);
+    }
+
+    @Benchmark
+    public long encrypted() {
+        XlsxMaker.Builder builder = XlsxMaker.builder("benchmark.xlsx").engine(engine).password("benchmark");
+        for (int i = 0; i < sheets; i++) {
+            builder.sheet(XlsxSheet.builder("Sheet" + i).header(BenchmarkData.header(columns)).rows(data).build());
+        }
+
+        return write(builder);
+    }
+
+    private static long write(XlsxMaker.Builder builder) {
+        BenchmarkData.CountingOutputStream out = new BenchmarkData.CountingOutputStream();
+        builder.build().write(out);
+        return out.count;
+    }
+}
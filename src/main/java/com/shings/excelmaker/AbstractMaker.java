@@ -1,18 +1,40 @@
 package com.shings.excelmaker;
 
+import com.shings.excelmaker.io.FileOutputOptions;
+import com.shings.excelmaker.jfr.ExportEvent;
+import com.shings.excelmaker.jfr.ExportPhaseEvent;
+import com.shings.excelmaker.metrics.GenerationEvent;
+import com.shings.excelmaker.metrics.GenerationListener;
+import com.shings.excelmaker.metrics.GenerationPhase;
+import com.shings.excelmaker.progress.CancellationToken;
+import com.shings.excelmaker.util.AsyncExecutors;
+import com.shings.excelmaker.util.ChannelOutputStream;
 import com.shings.excelmaker.util.FileUtil;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
 public abstract class AbstractMaker<E extends RuntimeException> {
+    private static final int DEFAULT_FIRST_SEGMENT_SIZE = 64 * 1024;
+    private static final int DEFAULT_PUBLISHER_CHUNK_SIZE = 64 * 1024;
+    private static final String CANCELLED_MESSAGE = "Generation was cancelled.";
+
     private final String fileName;
+    private final GenerationListener generationListener;
 
     protected AbstractMaker(String fileName) {
+        this(fileName, null);
+    }
+
+    protected AbstractMaker(String fileName, GenerationListener generationListener) {
         if (fileName == null || fileName.isBlank()) {
             throw createException("fileName must not be null or blank.", null);
         }
@@ -22,6 +44,7 @@ public abstract class AbstractMaker<E extends RuntimeException> {
         }
 
         this.fileName = fileName;
+        this.generationListener = generationListener;
     }
 
     public String getFileName() {
@@ -29,22 +52,70 @@ public abstract class AbstractMaker<E extends RuntimeException> {
     }
 
     public final byte[] toBytes() {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            generate(outputStream);
-            return outputStream.toByteArray();
+        GenerationTrace trace = startTrace("toBytes");
+        try {
+            SegmentedOutputStream outputStream = generateToSegments(trace, DEFAULT_FIRST_SEGMENT_SIZE, "Failed to convert content to byte array.");
+            byte[] bytes = toByteArray(outputStream, "Failed to convert content to byte array.");
+            finishTrace(trace);
+            return bytes;
 
-        } catch (IOException e) {
-            throw createException("Failed to convert content to byte array.", e);
+        } finally {
+            endTrace(trace);
         }
     }
 
+    public final ByteSegments toByteSegments() {
+        GenerationTrace trace = startTrace("toByteSegments");
+        try {
+            ByteSegments segments = generateToSegments(trace, DEFAULT_FIRST_SEGMENT_SIZE, "Failed to convert content to byte segments.").toSegments();
+            finishTrace(trace);
+            return segments;
+
+        } finally {
+            endTrace(trace);
+        }
+    }
+
+    public final ByteBuffer toByteBuffer() {
+        return toByteBuffer(DEFAULT_FIRST_SEGMENT_SIZE);
+    }
+
+    // When the content fits in sizeHint bytes, the returned buffer wraps the array it was generated into.
+    public final ByteBuffer toByteBuffer(int sizeHint) {
+        if (sizeHint <= 0) {
+            throw createException("sizeHint must be greater than 0.", null);
+        }
+
+        GenerationTrace trace = startTrace("toByteBuffer");
+        try {
+            SegmentedOutputStream outputStream = generateToSegments(trace, sizeHint, "Failed to convert content to ByteBuffer.");
+            ByteBuffer buffer = outputStream.isSingleSegment()
+                    ? ByteBuffer.wrap(outputStream.firstSegment(), 0, (int) outputStream.size())
+                    : ByteBuffer.wrap(toByteArray(outputStream, "Failed to convert content to ByteBuffer."));
+            finishTrace(trace);
+            return buffer;
+
+        } finally {
+            endTrace(trace);
+        }
+    }
+
+    private byte[] toByteArray(SegmentedOutputStream outputStream, String failureMessage) {
+        if (!outputStream.fitsInByteArray()) {
+            throw createException(failureMessage + " Content of " + outputStream.size()
+                    + " bytes does not fit in a byte array; use toByteSegments() or toPath().", null);
+        }
+
+        return outputStream.toByteArray();
+    }
+
     public final void write(OutputStream out) {
         if (out == null) {
             throw createException("OutputStream must not be null.", null);
         }
 
         try {
-            generate(out);
+            generateTraced(out, "write", null);
 
         } catch (IOException e) {
             throw createException("Failed to write content to OutputStream.", e);
@@ -52,15 +123,34 @@ public abstract class AbstractMaker<E extends RuntimeException> {
     }
 
     public final void toPath(Path targetPath) {
+        toPath(targetPath, FileOutputOptions.defaults());
+    }
+
+    public final void toPath(Path targetPath, FileOutputOptions options) {
         if (targetPath == null) {
             throw createException("targetPath must not be null.", null);
         }
 
-        try (OutputStream outputStream = Files.newOutputStream(targetPath)) {
-            generate(outputStream);
+        if (options == null) {
+            throw createException("options must not be null.", null);
+        }
+
+        GenerationTrace trace = startTrace("toPath");
+        try {
+            try (OutputStream outputStream = ChannelOutputStream.open(targetPath, options)) {
+                generate(trace == null ? outputStream : trace.count(outputStream), null);
+            }
+            finishTrace(trace);
 
         } catch (IOException e) {
             throw createException("Failed to write content to file: " + targetPath, e);
+
+        } catch (CancellationException e) {
+            deleteQuietly(targetPath);
+            throw createException(CANCELLED_MESSAGE, e);
+
+        } finally {
+            endTrace(trace);
         }
     }
 
@@ -87,25 +177,219 @@ public abstract class AbstractMaker<E extends RuntimeException> {
     }
 
     public final File toTempFile(String suffix) {
+        return toTempFile(suffix, FileOutputOptions.defaults());
+    }
+
+    public final File toTempFile(String suffix, FileOutputOptions options) {
         if (suffix == null || suffix.isBlank()) {
             throw createException("suffix must not be null or blank.", null);
         }
 
+        if (options == null) {
+            throw createException("options must not be null.", null);
+        }
+
+        GenerationTrace trace = startTrace("toTempFile");
+        Path temp = null;
+        boolean completed = false;
         try {
-            Path temp = Files.createTempFile(null, suffix);
-            try (OutputStream out = Files.newOutputStream(temp)) {
-                generate(out);
+            temp = Files.createTempFile(null, suffix);
+            try (OutputStream out = ChannelOutputStream.open(temp, options)) {
+                generate(trace == null ? out : trace.count(out), null);
             }
+            finishTrace(trace);
+            completed = true;
 
             return temp.toFile();
 
         } catch (IOException e) {
 
             throw createException("Failed to generate temporary file.", e);
+
+        } catch (CancellationException e) {
+            throw createException(CANCELLED_MESSAGE, e);
+
+        } finally {
+            if (!completed && temp != null) {
+                // Nobody else knows the path of a half-written temp file.
+                deleteQuietly(temp);
+            }
+            endTrace(trace);
+        }
+    }
+
+    public final CompletableFuture<byte[]> toBytesAsync() {
+        return toBytesAsync(AsyncExecutors.defaultExecutor());
+    }
+
+    public final CompletableFuture<byte[]> toBytesAsync(Executor executor) {
+        validateExecutor(executor);
+        return CompletableFuture.supplyAsync(this::toBytes, executor);
+    }
+
+    public final CompletableFuture<Void> writeAsync(OutputStream out) {
+        return writeAsync(out, AsyncExecutors.defaultExecutor());
+    }
+
+    public final CompletableFuture<Void> writeAsync(OutputStream out, Executor executor) {
+        if (out == null) {
+            throw createException("OutputStream must not be null.", null);
+        }
+
+        validateExecutor(executor);
+        return CompletableFuture.runAsync(() -> write(out), executor);
+    }
+
+    public final CompletableFuture<Void> toPathAsync(Path targetPath) {
+        return toPathAsync(targetPath, AsyncExecutors.defaultExecutor());
+    }
+
+    public final CompletableFuture<Void> toPathAsync(Path targetPath, Executor executor) {
+        if (targetPath == null) {
+            throw createException("targetPath must not be null.", null);
+        }
+
+        validateExecutor(executor);
+        return CompletableFuture.runAsync(() -> toPath(targetPath), executor);
+    }
+
+    public final CompletableFuture<File> toTempFileAsync(String suffix) {
+        return toTempFileAsync(suffix, AsyncExecutors.defaultExecutor());
+    }
+
+    public final CompletableFuture<File> toTempFileAsync(String suffix, Executor executor) {
+        if (suffix == null || suffix.isBlank()) {
+            throw createException("suffix must not be null or blank.", null);
+        }
+
+        validateExecutor(executor);
+        return CompletableFuture.supplyAsync(() -> toTempFile(suffix), executor);
+    }
+
+    public final Flow.Publisher<ByteBuffer> toPublisher() {
+        return toPublisher(AsyncExecutors.publisherExecutor(), DEFAULT_PUBLISHER_CHUNK_SIZE);
+    }
+
+    public final Flow.Publisher<ByteBuffer> toPublisher(Executor executor, int chunkSize) {
+        validateExecutor(executor);
+        if (chunkSize <= 0) {
+            throw createException("chunkSize must be greater than 0.", null);
+        }
+
+        return new OutputPublisher((out, cancellation) -> generateTraced(out, "toPublisher", cancellation), this::createException, executor, chunkSize);
+    }
+
+    private void validateExecutor(Executor executor) {
+        if (executor == null) {
+            throw createException("executor must not be null.", null);
+        }
+    }
+
+    private SegmentedOutputStream generateToSegments(GenerationTrace trace, int firstSegmentSize, String failureMessage) {
+        SegmentedOutputStream outputStream = new SegmentedOutputStream(firstSegmentSize);
+        try {
+            generate(trace == null ? outputStream : trace.count(outputStream), null);
+            return outputStream;
+
+        } catch (IOException e) {
+            throw createException(failureMessage, e);
+
+        } catch (CancellationException e) {
+            throw createException(CANCELLED_MESSAGE, e);
+        }
+    }
+
+    private void generateTraced(OutputStream out, String output, CancellationToken outputCancellation) throws IOException {
+        GenerationTrace trace = startTrace(output);
+        try {
+            generate(trace == null ? out : trace.count(out), outputCancellation);
+            finishTrace(trace);
+
+        } catch (CancellationException e) {
+            throw createException(CANCELLED_MESSAGE, e);
+
+        } finally {
+            endTrace(trace);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // The cancellation is what the caller needs to hear about.
+        }
+    }
+
+    private GenerationTrace startTrace(String output) {
+        ExportEvent event = ExportEvent.start(getClass().getSimpleName(), fileName, output);
+        if (event == null && generationListener == null) {
+            return null;
+        }
+
+        return GenerationTrace.start(event);
+    }
+
+    private void finishTrace(GenerationTrace trace) {
+        if (trace == null) {
+            return;
+        }
+
+        long durationNanos = System.nanoTime() - trace.getStartNanos();
+        trace.commitEvent();
+        if (generationListener != null) {
+            generationListener.onEvent(new GenerationEvent(GenerationPhase.OUTPUT, fileName, null, trace.getRows(), trace.getCells(),
+                    trace.getBytes(), durationNanos));
+        }
+    }
+
+    private static void endTrace(GenerationTrace trace) {
+        if (trace != null) {
+            trace.end();
+        }
+    }
+
+    /**
+     * Whether phases are observed by a generation listener or a flight recording, i.e. whether it is worth
+     * counting bytes that are otherwise not needed.
+     */
+    protected final boolean isGenerationObserved() {
+        return generationListener != null || ExportPhaseEvent.isRecording();
+    }
+
+    final GenerationSpan startPhase(GenerationPhase phase, String sheetName) {
+        return new GenerationSpan(phase, sheetName, ExportPhaseEvent.start(getClass().getSimpleName(), fileName, phase, sheetName));
+    }
+
+    final void endPhase(GenerationSpan span, long rows, long cells, long bytes) {
+        long durationNanos = span.end(rows, cells, bytes);
+        reportPhase(span.getPhase(), span.getSheetName(), rows, cells, bytes, durationNanos);
+    }
+
+    /**
+     * Reports a finished phase to the generation listener, if any. {@code RENDER} rows and cells are added
+     * to the totals of the {@code OUTPUT} event. Must be called on the thread that runs {@link #generate}.
+     */
+    protected final void reportPhase(GenerationPhase phase, String sheetName, long rows, long cells, long bytes, long durationNanos) {
+        GenerationTrace trace = GenerationTrace.current();
+        if (trace != null) {
+            if (phase == GenerationPhase.RENDER) {
+                trace.addRendered(sheetName, rows, cells);
+            } else if (phase == GenerationPhase.ENCRYPTION) {
+                trace.markEncrypted();
+            }
+        }
+
+        if (generationListener != null) {
+            generationListener.onEvent(new GenerationEvent(phase, fileName, sheetName, rows, cells, bytes, durationNanos));
         }
     }
 
-    protected abstract void generate(OutputStream out) throws IOException;
+    /**
+     * Writes the content to {@code out}. {@code outputCancellation}, when not {@code null}, is cancelled once nobody
+     * consumes this output anymore, and is checked together with the maker's own cancellation token.
+     */
+    protected abstract void generate(OutputStream out, CancellationToken outputCancellation) throws IOException;
 
     protected abstract E createException(String message, Throwable cause);
 }
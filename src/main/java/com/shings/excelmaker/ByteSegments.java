@@ -0,0 +1,53 @@
+package com.shings.excelmaker;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Generated content kept in the segments it was written to, without copying it into one contiguous array.
+ * The content can exceed 2 GB.
+ */
+public final class ByteSegments {
+    private final List<byte[]> segments;
+    private final int lastSegmentLength;
+    private final long size;
+
+    ByteSegments(List<byte[]> segments, int lastSegmentLength, long size) {
+        this.segments = segments;
+        this.lastSegmentLength = lastSegmentLength;
+        this.size = size;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Read-only views over the segments, in order. No bytes are copied.
+     */
+    public List<ByteBuffer> asByteBuffers() {
+        List<ByteBuffer> buffers = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            int length = segmentLength(i);
+            if (length > 0) {
+                buffers.add(ByteBuffer.wrap(segments.get(i), 0, length).asReadOnlyBuffer());
+            }
+        }
+
+        return Collections.unmodifiableList(buffers);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        for (int i = 0; i < segments.size(); i++) {
+            out.write(segments.get(i), 0, segmentLength(i));
+        }
+    }
+
+    private int segmentLength(int index) {
+        return index == segments.size() - 1 ? lastSegmentLength : segments.get(index).length;
+    }
+}
@@ -1,26 +1,71 @@
 package com.shings.excelmaker;
 
 import com.shings.excelmaker.exception.CsvException;
+import com.shings.excelmaker.io.CompressionOptions;
+import com.shings.excelmaker.jdbc.ResultSetSource;
+import com.shings.excelmaker.mapping.RowMapper;
+import com.shings.excelmaker.metrics.GenerationListener;
+import com.shings.excelmaker.metrics.GenerationPhase;
+import com.shings.excelmaker.progress.CancellationToken;
+import com.shings.excelmaker.progress.ProgressListener;
+import com.shings.excelmaker.row.RowProducer;
+import com.shings.excelmaker.table.Table;
 import com.shings.excelmaker.util.CollectionCopyUtils;
+import com.shings.excelmaker.util.CsvEncoder;
+import com.shings.excelmaker.util.GzipOutputStream;
+import com.shings.excelmaker.util.ProgressTracker;
+import com.shings.excelmaker.util.RowBuffer;
+import com.shings.excelmaker.util.RowProducers;
+import com.shings.excelmaker.util.SingleUseSource;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public final class CsvMaker extends AbstractMaker<CsvException> {
+    private static final int DEFAULT_CHUNK_ROWS = 8192;
+
     private final List<List<String>> rows;
+    private final List<Supplier<RowProducer>> streamedRows;
+    private final boolean hasRowSource;
     private final char delimiter;
     private final String lineSeparator;
+    private final ForkJoinPool encodingPool;
+    private final int chunkRows;
+    private final int maxInFlightChunks;
+    private final CompressionOptions gzipCompression;
+    private final ProgressListener progressListener;
+    private final long progressIntervalRows;
+    private final CancellationToken cancellationToken;
 
     private CsvMaker(Builder builder) {
-        super(builder.fileName);
+        super(builder.fileName, builder.generationListener);
+        GenerationSpan build = startPhase(GenerationPhase.BUILD, null);
         this.rows = CollectionCopyUtils.nullSafeCopyOf(builder.rows);
+        this.streamedRows = List.copyOf(builder.streamedRows);
+        this.hasRowSource = builder.hasRowSource;
         this.delimiter = builder.delimiter;
         this.lineSeparator = builder.lineSeparator;
+        this.encodingPool = builder.encodingPool;
+        this.chunkRows = builder.chunkRows;
+        this.maxInFlightChunks = builder.maxInFlightChunks;
+        this.gzipCompression = builder.gzipCompression;
+        this.progressListener = builder.progressListener;
+        this.progressIntervalRows = builder.progressIntervalRows;
+        this.cancellationToken = builder.cancellationToken;
+        endPhase(build, rows.size(), 0, 0);
     }
 
     public static Builder builder(String fileName) {
@@ -31,6 +76,10 @@ public final class CsvMaker extends AbstractMaker<CsvException> {
         return rows;
     }
 
+    public boolean hasRowSource() {
+        return hasRowSource;
+    }
+
     public char getDelimiter() {
         return delimiter;
     }
@@ -39,72 +88,181 @@ public final class CsvMaker extends AbstractMaker<CsvException> {
         return lineSeparator;
     }
 
+    public boolean isGzip() {
+        return gzipCompression != null;
+    }
+
+    public CompressionOptions getGzipCompression() {
+        return gzipCompression;
+    }
+
     public File toTempFile() {
-        return toTempFile(".csv");
+        return toTempFile(isGzip() ? ".csv.gz" : ".csv");
     }
 
     @Override
-    protected void generate(OutputStream out) throws IOException {
-        OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    protected void generate(OutputStream out, CancellationToken outputCancellation) throws IOException {
+        ProgressTracker progress = ProgressTracker.of(getFileName(), progressListener, cancellationToken, outputCancellation, progressIntervalRows);
+        progress.checkCancelled();
+        OutputStream target = progress.count(out);
+        if (gzipCompression == null) {
+            generateCsv(target, progress);
+            progress.finish();
+            return;
+        }
 
-        for (List<String> row : rows) {
-            if (row == null || row.isEmpty()) {
-                writer.write(lineSeparator);
-                continue;
+        GzipOutputStream gzip = new GzipOutputStream(target, gzipCompression);
+        boolean completed = false;
+        try {
+            generateCsv(gzip, progress);
+            gzip.finish();
+            completed = true;
+        } finally {
+            if (!completed) {
+                gzip.abort();
             }
+        }
+        progress.finish();
+    }
+
+    private void generateCsv(OutputStream out, ProgressTracker progress) throws IOException {
+        GenerationSpan render = startPhase(GenerationPhase.RENDER, null);
+        if (encodingPool != null) {
+            RenderTotals totals = generateInParallel(out, progress);
+            endPhase(render, totals.rows, totals.cells, totals.bytes);
+            return;
+        }
+
+        CsvEncoder encoder = CsvEncoder.to(out, delimiter, lineSeparator);
+        ProgressTracker.RowCounter rowCounter = progress.rowCounter();
 
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < row.size(); i++) {
-                if (i > 0) {
-                    sb.append(delimiter);
+        try {
+            for (List<String> row : rows) {
+                RowProducers.writeTextRow(row, encoder);
+                encoder.endRow();
+                rowCounter.row();
+            }
+
+            for (Supplier<RowProducer> part : streamedRows) {
+                try (RowProducer producer = part.get()) {
+                    while (producer.next(encoder)) {
+                        encoder.endRow();
+                        rowCounter.row();
+                    }
                 }
-                sb.append(encodeCell(row.get(i)));
             }
 
-            writer.write(sb.toString());
-            writer.write(lineSeparator);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
 
-        writer.flush();
+        encoder.flush();
+        rowCounter.flush();
+        endPhase(render, encoder.getRowCount(), encoder.getCellCount(), encoder.getBytesWritten());
     }
 
-    @Override
-    protected CsvException createException(String message, Throwable cause) {
-        if (cause == null) {
-            return new CsvException(message);
+    // Rows are read on the calling thread and captured in chunks; chunks are encoded on the pool and written
+    // in their original order. At most maxInFlightChunks chunks are buffered at any time.
+    private RenderTotals generateInParallel(OutputStream out, ProgressTracker progress) throws IOException {
+        Deque<ForkJoinTask<byte[]>> inFlight = new ArrayDeque<>();
+        RenderTotals totals = new RenderTotals();
+        try {
+            writeInChunks(RowProducers.ofTextRows(rows.iterator(), () -> {
+            }), inFlight, out, totals, progress);
+
+            for (Supplier<RowProducer> part : streamedRows) {
+                try (RowProducer producer = part.get()) {
+                    writeInChunks(producer, inFlight, out, totals, progress);
+                }
+            }
+
+            while (!inFlight.isEmpty()) {
+                totals.write(out, inFlight.poll().join());
+            }
+            return totals;
+
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+
+        } finally {
+            for (ForkJoinTask<byte[]> chunk : inFlight) {
+                chunk.cancel(false);
+            }
         }
+    }
 
-        return new CsvException(message, cause);
+    private void writeInChunks(RowProducer producer, Deque<ForkJoinTask<byte[]>> inFlight, OutputStream out, RenderTotals totals,
+                               ProgressTracker progress) throws IOException {
+        while (true) {
+            RowBuffer chunk = new RowBuffer(chunkRows);
+            while (chunk.getRowCount() < chunkRows && producer.next(chunk)) {
+                chunk.endRow();
+            }
+
+            if (chunk.getRowCount() == 0) {
+                return;
+            }
+
+            totals.rows += chunk.getRowCount();
+            totals.cells += chunk.getCellCount();
+            progress.addRows(chunk.getRowCount());
+            if (inFlight.size() >= maxInFlightChunks) {
+                totals.write(out, inFlight.poll().join());
+            }
+            inFlight.add(encodingPool.submit(() -> encodeChunk(chunk)));
+
+            if (chunk.getRowCount() < chunkRows) {
+                return;
+            }
+        }
     }
 
-    private String encodeCell(String value) {
-        if (value == null) {
-            return "";
+    private byte[] encodeChunk(RowBuffer chunk) {
+        CsvEncoder encoder = CsvEncoder.inMemory(delimiter, lineSeparator, chunk.getCellCount() * 8 + 64);
+
+        RowProducer rows = chunk.rows();
+        while (rows.next(encoder)) {
+            encoder.endRow();
         }
 
-        boolean needsQuote = value.indexOf(delimiter) >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
-        if (!needsQuote) {
-            return value;
+        return encoder.toByteArray();
+    }
+
+    private static final class RenderTotals {
+        private long rows;
+        private long cells;
+        private long bytes;
+
+        private void write(OutputStream out, byte[] encoded) throws IOException {
+            out.write(encoded);
+            bytes += encoded.length;
         }
+    }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append('"');
-        for (int i = 0; i < value.length(); i++) {
-            char c = value.charAt(i);
-            if (c == '"') {
-                sb.append('"');
-            }
-            sb.append(c);
+    @Override
+    protected CsvException createException(String message, Throwable cause) {
+        if (cause == null) {
+            return new CsvException(message);
         }
-        sb.append('"');
-        return sb.toString();
+
+        return new CsvException(message, cause);
     }
 
     public static final class Builder {
         private final String fileName;
         private final List<List<String>> rows = new ArrayList<>();
+        private final List<Supplier<RowProducer>> streamedRows = new ArrayList<>();
+        private boolean hasRowSource;
         private char delimiter = ',';
         private String lineSeparator = System.lineSeparator();
+        private ForkJoinPool encodingPool;
+        private int chunkRows;
+        private int maxInFlightChunks;
+        private CompressionOptions gzipCompression;
+        private GenerationListener generationListener;
+        private ProgressListener progressListener;
+        private long progressIntervalRows = ProgressTracker.DEFAULT_REPORT_INTERVAL_ROWS;
+        private CancellationToken cancellationToken;
 
         public Builder(String fileName) {
             this.fileName = fileName;
@@ -157,6 +315,122 @@ public final class CsvMaker extends AbstractMaker<CsvException> {
             return this;
         }
 
+        public Builder rowSource(Iterator<? extends List<String>> rowSource) {
+            if (rowSource == null) {
+                throw new CsvException("rowSource must not be null.");
+            }
+
+            return addRowSource(SingleUseSource.of(rowSource));
+        }
+
+        public Builder rowSource(Spliterator<? extends List<String>> rowSource) {
+            if (rowSource == null) {
+                throw new CsvException("rowSource must not be null.");
+            }
+
+            return addRowSource(SingleUseSource.of(rowSource));
+        }
+
+        public Builder rowSource(Stream<? extends List<String>> rowSource) {
+            if (rowSource == null) {
+                throw new CsvException("rowSource must not be null.");
+            }
+
+            return addRowSource(SingleUseSource.of(rowSource));
+        }
+
+        public Builder table(Table table) {
+            if (table == null) {
+                throw new CsvException("table must not be null.");
+            }
+
+            List<String> header = table.getColumnNames();
+            streamedRows.add(() -> RowProducers.concat(List.of(
+                    RowProducers.ofTextRows(List.of(header).iterator(), () -> {
+                    }),
+                    table.rows()
+            )));
+            return this;
+        }
+
+        /**
+         * Writes a header row from the {@link com.shings.excelmaker.mapping.ExcelColumn} names of {@code type},
+         * then one line per object. The objects are iterated again on every generation.
+         */
+        public <T> Builder objects(Class<T> type, Iterable<? extends T> objects) {
+            if (type == null) {
+                throw new CsvException("type must not be null.");
+            }
+            if (objects == null) {
+                throw new CsvException("objects must not be null.");
+            }
+
+            RowMapper<T> mapper = mapper(type);
+            streamedRows.add(() -> RowProducers.concat(List.of(
+                    RowProducers.ofTextRows(List.of(mapper.getColumnNames()).iterator(), () -> {
+                    }),
+                    mappedRows(mapper.rows(objects))
+            )));
+            return this;
+        }
+
+        /**
+         * Like {@link #objects(Class, Iterable)}, but pulls the objects from a stream that can be consumed only once.
+         */
+        public <T> Builder objectSource(Class<T> type, Stream<? extends T> objects) {
+            if (type == null) {
+                throw new CsvException("type must not be null.");
+            }
+            if (objects == null) {
+                throw new CsvException("objectSource must not be null.");
+            }
+
+            RowMapper<T> mapper = mapper(type);
+            SingleUseSource<T> source = SingleUseSource.of(objects);
+            streamedRows.add(() -> {
+                Iterator<? extends T> iterator = source.take();
+                if (iterator == null) {
+                    throw new CsvException("objectSource has already been consumed. A row source can be generated only once.");
+                }
+
+                return RowProducers.concat(List.of(
+                        RowProducers.ofTextRows(List.of(mapper.getColumnNames()).iterator(), () -> {
+                        }),
+                        mappedRows(mapper.rows(iterator, source::close))
+                ));
+            });
+            hasRowSource = true;
+            return this;
+        }
+
+        /**
+         * Writes a header row with the column labels, then the rows of the result set as they are fetched.
+         * Like a row source, it can be generated only once; the rows are only taken from the source at generation time.
+         */
+        public Builder resultSet(ResultSetSource resultSet) {
+            if (resultSet == null) {
+                throw new CsvException("resultSet must not be null.");
+            }
+            if (resultSet.isConsumed()) {
+                throw new CsvException("resultSet has already been consumed. A result set can be written only once.");
+            }
+
+            AtomicBoolean taken = new AtomicBoolean(false);
+            streamedRows.add(() -> {
+                if (!taken.compareAndSet(false, true)) {
+                    throw new CsvException("resultSet has already been consumed. A row source can be generated only once.");
+                }
+
+                return RowProducers.concat(List.of(
+                        RowProducers.ofTextRows(List.of(resultSet.getColumnNames()).iterator(), () -> {
+                        }),
+                        resultSet.rows()
+                ));
+            });
+            hasRowSource = true;
+            return this;
+        }
+
         public Builder delimiter(char delimiter) {
             this.delimiter = delimiter;
             return this;
@@ -171,8 +445,103 @@ public final class CsvMaker extends AbstractMaker<CsvException> {
             return this;
         }
 
+        public Builder parallelEncoding(ForkJoinPool pool) {
+            if (pool == null) {
+                throw new CsvException("pool must not be null.");
+            }
+
+            return parallelEncoding(pool, DEFAULT_CHUNK_ROWS, pool.getParallelism() * 2);
+        }
+
+        public Builder parallelEncoding(ForkJoinPool pool, int chunkRows, int maxInFlightChunks) {
+            if (pool == null) {
+                throw new CsvException("pool must not be null.");
+            }
+
+            if (chunkRows <= 0) {
+                throw new CsvException("chunkRows must be greater than 0.");
+            }
+
+            if (maxInFlightChunks <= 0) {
+                throw new CsvException("maxInFlightChunks must be greater than 0.");
+            }
+
+            this.encodingPool = pool;
+            this.chunkRows = chunkRows;
+            this.maxInFlightChunks = maxInFlightChunks;
+            return this;
+        }
+
+        /**
+         * Writes the CSV as a single GZIP member, compressed with the default level on the calling thread.
+         */
+        public Builder gzip() {
+            return gzip(CompressionOptions.defaults());
+        }
+
+        public Builder gzip(CompressionOptions compression) {
+            if (compression == null) {
+                throw new CsvException("compression must not be null.");
+            }
+
+            this.gzipCompression = compression;
+            return this;
+        }
+
+        public Builder generationListener(GenerationListener generationListener) {
+            this.generationListener = generationListener;
+            return this;
+        }
+
+        public Builder progressListener(ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        /**
+         * Sets how many rows pass between progress reports, 10,000 by default.
+         */
+        public Builder progressInterval(long rows) {
+            if (rows <= 0) {
+                throw new CsvException("rows must be greater than 0.");
+            }
+
+            this.progressIntervalRows = rows;
+            return this;
+        }
+
+        public Builder cancellationToken(CancellationToken cancellationToken) {
+            this.cancellationToken = cancellationToken;
+            return this;
+        }
+
         public CsvMaker build() {
             return new CsvMaker(this);
         }
+
+        private static <T> RowMapper<T> mapper(Class<T> type) {
+            try {
+                return RowMapper.of(type);
+            } catch (IllegalArgumentException e) {
+                throw new CsvException(e.getMessage(), e);
+            }
+        }
+
+        private static RowProducer mappedRows(RowProducer rows) {
+            return RowProducers.translateIllegalArguments(rows, e -> new CsvException(e.getMessage(), e));
+        }
+
+        private Builder addRowSource(SingleUseSource<List<String>> source) {
+            streamedRows.add(() -> {
+                Iterator<? extends List<String>> iterator = source.take();
+                if (iterator == null) {
+                    throw new CsvException("rowSource has already been consumed. A row source can be generated only once.");
+                }
+
+                return RowProducers.ofTextRows(iterator, source::close);
+            });
+            hasRowSource = true;
+            return this;
+        }
     }
 }
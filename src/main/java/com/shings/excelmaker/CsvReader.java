@@ -0,0 +1,603 @@
+package com.shings.excelmaker;
+
+import com.shings.excelmaker.exception.CsvException;
+import com.shings.excelmaker.row.CellSink;
+import com.shings.excelmaker.row.RowProducer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads UTF-8 CSV with the quoting rules of {@link CsvMaker}: cells containing the delimiter, a quote or a line break
+ * are quoted, and quotes inside them are doubled. Records end with {@code \n}, {@code \r\n} or {@code \r}.
+ *
+ * <p>The file is memory-mapped in windows of {@code mapSize} bytes, and a {@link Cursor} parses one record at a time
+ * into reusable offset arrays, so cells are only decoded when they are read.
+ * {@link #split(ForkJoinPool, int)} cuts the file into ranges that start at record boundaries, to be read in parallel.
+ */
+public final class CsvReader implements AutoCloseable {
+    private static final int DEFAULT_MAP_SIZE = 1 << 30;
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final Path path;
+    private final FileChannel channel;
+    private final byte[] delimiter;
+    private final int mapSize;
+    private final long size;
+    private final long dataStart;
+    private final List<String> header;
+
+    private CsvReader(Builder builder) {
+        this.path = builder.path;
+        this.delimiter = String.valueOf(builder.delimiter).getBytes(StandardCharsets.UTF_8);
+        this.mapSize = builder.mapSize;
+
+        try {
+            this.channel = FileChannel.open(builder.path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new CsvException("Failed to open CSV file: " + builder.path, e);
+        }
+
+        try {
+            this.size = channel.size();
+            long start = hasByteOrderMark() ? 3 : 0;
+            if (builder.header) {
+                Cursor cursor = new Cursor(this, start, size);
+                this.header = cursor.next() ? Collections.unmodifiableList(cursor.toList()) : List.of();
+                start = cursor.position;
+            } else {
+                this.header = null;
+            }
+            this.dataStart = start;
+
+        } catch (IOException | RuntimeException e) {
+            closeQuietly();
+            throw e instanceof CsvException ? (CsvException) e : new CsvException("Failed to read CSV file: " + builder.path, e);
+        }
+    }
+
+    public static Builder builder(Path path) {
+        return new Builder(path);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Cells of the first record when the reader was built with {@code header(true)}, otherwise {@code null}.
+     */
+    public List<String> getHeader() {
+        return header;
+    }
+
+    /**
+     * Returns a cursor over all records after the header.
+     */
+    public Cursor cursor() {
+        return new Cursor(this, dataStart, size);
+    }
+
+    /**
+     * Splits the records after the header into at most {@code parts} cursors, in file order.
+     * Quotes are counted per slice on {@code pool}, so each slice knows whether it starts inside a quoted cell and can
+     * move its start to the next record boundary. Each cursor must be used by one thread at a time.
+     */
+    public List<Cursor> split(ForkJoinPool pool, int parts) {
+        if (pool == null) {
+            throw new CsvException("pool must not be null.");
+        }
+
+        if (parts <= 0) {
+            throw new CsvException("parts must be greater than 0.");
+        }
+
+        long length = size - dataStart;
+        long[] slices = new long[parts + 1];
+        for (int i = 0; i <= parts; i++) {
+            slices[i] = dataStart + length * i / parts;
+        }
+
+        List<Future<Long>> quoteCounts = new ArrayList<>(parts);
+        for (int i = 0; i < parts; i++) {
+            long from = slices[i];
+            long to = slices[i + 1];
+            quoteCounts.add(pool.submit(() -> countQuotes(from, to)));
+        }
+
+        long[] boundaries = new long[parts + 1];
+        boundaries[0] = dataStart;
+        boundaries[parts] = size;
+        boolean inQuotes = false;
+        for (int i = 1; i < parts; i++) {
+            inQuotes ^= (join(quoteCounts.get(i - 1)) & 1) == 1;
+            boundaries[i] = Math.max(boundaries[i - 1], recordStart(slices[i], inQuotes));
+        }
+
+        List<Cursor> cursors = new ArrayList<>(parts);
+        for (int i = 0; i < parts; i++) {
+            if (boundaries[i] < boundaries[i + 1]) {
+                cursors.add(new Cursor(this, boundaries[i], boundaries[i + 1]));
+            }
+        }
+
+        return cursors;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new CsvException("Failed to close CSV file: " + path, e);
+        }
+    }
+
+    private boolean hasByteOrderMark() throws IOException {
+        ByteBuffer bom = ByteBuffer.allocate(3);
+        channel.read(bom, 0);
+
+        return bom.position() == 3 && bom.get(0) == (byte) 0xEF && bom.get(1) == (byte) 0xBB && bom.get(2) == (byte) 0xBF;
+    }
+
+    private long countQuotes(long from, long to) {
+        long count = 0;
+        for (long windowStart = from; windowStart < to; windowStart += mapSize) {
+            int limit = (int) Math.min(mapSize, to - windowStart);
+            MappedByteBuffer buffer = map(windowStart, limit);
+            for (int i = 0; i < limit; i++) {
+                if (buffer.get(i) == QUOTE) {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    // Returns the first record start at or after position, given whether position is inside a quoted cell.
+    private long recordStart(long position, boolean inQuotes) {
+        if (position <= dataStart) {
+            return dataStart;
+        }
+
+        if (position >= size) {
+            return size;
+        }
+
+        long windowStart = position - 1;
+        int limit = (int) Math.min(Math.min((long) mapSize + 1, Integer.MAX_VALUE), size - windowStart);
+        MappedByteBuffer buffer = map(windowStart, limit);
+        byte previous = buffer.get(0);
+        if (!inQuotes && (previous == LF || (previous == CR && buffer.get(1) != LF))) {
+            return position;
+        }
+
+        for (int i = 1; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                inQuotes = !inQuotes;
+            } else if (!inQuotes && (b == LF || b == CR)) {
+                boolean crLf = b == CR && i + 1 < limit && buffer.get(i + 1) == LF;
+                return windowStart + i + (crLf ? 2 : 1);
+            }
+        }
+
+        if (windowStart + limit >= size) {
+            return size;
+        }
+
+        throw new CsvException("A record starting near byte " + position + " is larger than mapSize (" + mapSize + " bytes).");
+    }
+
+    private MappedByteBuffer map(long position, int length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        } catch (IOException e) {
+            throw new CsvException("Failed to map CSV file: " + path, e);
+        }
+    }
+
+    private static long join(Future<Long> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CsvException("Interrupted while splitting CSV file.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof CsvException ? (CsvException) cause : new CsvException("Failed to split CSV file.", cause);
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // the original failure is more relevant
+        }
+    }
+
+    /**
+     * Reads the records of one range of the file.
+     * After {@link #next()} returns {@code true}, the cells of the current record can be read by index until the next call.
+     * As a {@link RowProducer}, it writes each record as text cells, e.g. to convert CSV to XLSX.
+     */
+    public static final class Cursor implements RowProducer {
+        private final CsvReader reader;
+        private final byte[] delimiter;
+        private final byte delimiterStart;
+        private final long end;
+        private long position;
+        private MappedByteBuffer buffer;
+        private long windowStart;
+        private int limit;
+        private int[] cellStarts = new int[16];
+        private int[] cellEnds = new int[16];
+        private boolean[] escaped = new boolean[16];
+        private int cellCount;
+        private byte[] scratch = new byte[64];
+
+        private Cursor(CsvReader reader, long start, long end) {
+            this.reader = reader;
+            this.delimiter = reader.delimiter;
+            this.delimiterStart = reader.delimiter[0];
+            this.position = start;
+            this.end = end;
+        }
+
+        /**
+         * Moves to the next record.
+         *
+         * @return {@code false} when the range has no more records.
+         * @throws CsvException when a quoted cell is not terminated or a record does not fit in {@code mapSize}.
+         */
+        public boolean next() {
+            cellCount = 0;
+            if (position >= end) {
+                return false;
+            }
+
+            if (buffer == null || position >= windowStart + limit) {
+                map(position);
+            }
+
+            while (true) {
+                int consumed = parse((int) (position - windowStart));
+                if (consumed >= 0) {
+                    position = windowStart + consumed;
+                    return true;
+                }
+
+                if (windowStart == position) {
+                    throw new CsvException("The record at byte " + position + " is larger than mapSize (" + reader.mapSize + " bytes).");
+                }
+                map(position);
+            }
+        }
+
+        @Override
+        public boolean next(CellSink sink) {
+            if (!next()) {
+                return false;
+            }
+
+            for (int i = 0; i < cellCount; i++) {
+                if (cellStarts[i] == cellEnds[i]) {
+                    sink.blank();
+                } else {
+                    sink.text(getText(i));
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Number of cells in the current record; an empty line has none.
+         */
+        public int getCellCount() {
+            return cellCount;
+        }
+
+        public boolean isEmpty(int column) {
+            Objects.checkIndex(column, cellCount);
+            return cellStarts[column] == cellEnds[column];
+        }
+
+        public String getText(int column) {
+            Objects.checkIndex(column, cellCount);
+            int start = cellStarts[column];
+            int length = cellEnds[column] - start;
+            if (length == 0) {
+                return "";
+            }
+
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(start, scratch, 0, length);
+            if (escaped[column]) {
+                length = unescape(scratch, length);
+            }
+
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parses the cell as a decimal {@code long} straight from the mapped bytes, without creating a {@code String}.
+         */
+        public long getLong(int column) {
+            Objects.checkIndex(column, cellCount);
+            int i = cellStarts[column];
+            int stop = cellEnds[column];
+            boolean negative = i < stop && buffer.get(i) == '-';
+            if (i < stop && (negative || buffer.get(i) == '+')) {
+                i++;
+            }
+
+            if (i == stop) {
+                throw notANumber(column);
+            }
+
+            long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long multiplyMin = limit / 10;
+            long value = 0;
+            for (; i < stop; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9 || value < multiplyMin) {
+                    throw notANumber(column);
+                }
+
+                value *= 10;
+                if (value < limit + digit) {
+                    throw notANumber(column);
+                }
+                value -= digit;
+            }
+
+            return negative ? value : -value;
+        }
+
+        public double getDouble(int column) {
+            try {
+                return Double.parseDouble(getText(column));
+            } catch (NumberFormatException e) {
+                throw notANumber(column);
+            }
+        }
+
+        public List<String> toList() {
+            List<String> cells = new ArrayList<>(cellCount);
+            for (int i = 0; i < cellCount; i++) {
+                cells.add(getText(i));
+            }
+
+            return cells;
+        }
+
+        private void map(long from) {
+            windowStart = from;
+            limit = (int) Math.min(reader.mapSize, end - from);
+            buffer = reader.map(from, limit);
+        }
+
+        // Parses the record at offset i of the window and returns the offset after it,
+        // or -1 when the record continues past the window and the window has to move.
+        private int parse(int i) {
+            MappedByteBuffer buf = buffer;
+            int limit = this.limit;
+            boolean more = windowStart + limit < end;
+            cellCount = 0;
+
+            byte first = buf.get(i);
+            if (first == LF) {
+                return i + 1;
+            }
+            if (first == CR) {
+                return lineEnd(buf, i, limit, more);
+            }
+
+            while (true) {
+                int start;
+                int stop;
+                boolean hasEscapes = false;
+                if (i < limit && buf.get(i) == QUOTE) {
+                    start = ++i;
+                    while (true) {
+                        if (i >= limit) {
+                            if (more) {
+                                return -1;
+                            }
+                            throw new CsvException("Unterminated quoted cell starting at byte " + (windowStart + start - 1) + ".");
+                        }
+
+                        if (buf.get(i) == QUOTE) {
+                            if (i + 1 < limit && buf.get(i + 1) == QUOTE) {
+                                hasEscapes = true;
+                                i += 2;
+                                continue;
+                            }
+                            if (i + 1 >= limit && more) {
+                                return -1;
+                            }
+                            break;
+                        }
+                        i++;
+                    }
+                    stop = i++;
+
+                } else {
+                    start = i;
+                    while (i < limit) {
+                        byte b = buf.get(i);
+                        if (b == LF || b == CR || (b == delimiterStart && isDelimiter(buf, i, limit))) {
+                            break;
+                        }
+                        i++;
+                    }
+
+                    if (i >= limit && more) {
+                        return -1;
+                    }
+                    stop = i;
+                }
+
+                addCell(start, stop, hasEscapes);
+                if (i >= limit) {
+                    return more ? -1 : i;
+                }
+
+                byte b = buf.get(i);
+                if (b == LF) {
+                    return i + 1;
+                }
+                if (b == CR) {
+                    return lineEnd(buf, i, limit, more);
+                }
+                if (b == delimiterStart && isDelimiter(buf, i, limit)) {
+                    i += delimiter.length;
+                    if (i >= limit) {
+                        if (more) {
+                            return -1;
+                        }
+                        addCell(i, i, false);
+                        return i;
+                    }
+                    continue;
+                }
+                if (i + delimiter.length > limit && more) {
+                    return -1;
+                }
+
+                throw new CsvException("Unexpected character after the closing quote at byte " + (windowStart + i) + ".");
+            }
+        }
+
+        private static int lineEnd(MappedByteBuffer buf, int i, int limit, boolean more) {
+            if (i + 1 < limit) {
+                return buf.get(i + 1) == LF ? i + 2 : i + 1;
+            }
+
+            return more ? -1 : i + 1;
+        }
+
+        private boolean isDelimiter(MappedByteBuffer buf, int i, int limit) {
+            if (delimiter.length == 1) {
+                return true;
+            }
+
+            if (i + delimiter.length > limit) {
+                return false;
+            }
+
+            for (int j = 1; j < delimiter.length; j++) {
+                if (buf.get(i + j) != delimiter[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void addCell(int start, int stop, boolean hasEscapes) {
+            if (cellCount == cellStarts.length) {
+                int capacity = cellCount * 2;
+                cellStarts = Arrays.copyOf(cellStarts, capacity);
+                cellEnds = Arrays.copyOf(cellEnds, capacity);
+                escaped = Arrays.copyOf(escaped, capacity);
+            }
+
+            cellStarts[cellCount] = start;
+            cellEnds[cellCount] = stop;
+            escaped[cellCount] = hasEscapes;
+            cellCount++;
+        }
+
+        private static int unescape(byte[] bytes, int length) {
+            int out = 0;
+            for (int i = 0; i < length; i++) {
+                bytes[out++] = bytes[i];
+                if (bytes[i] == QUOTE) {
+                    i++;
+                }
+            }
+
+            return out;
+        }
+
+        private CsvException notANumber(int column) {
+            return new CsvException("Cell " + column + " is not a number: " + getText(column));
+        }
+    }
+
+    public static final class Builder {
+        private final Path path;
+        private char delimiter = ',';
+        private boolean header;
+        private int mapSize = DEFAULT_MAP_SIZE;
+
+        private Builder(Path path) {
+            this.path = path;
+        }
+
+        public Builder delimiter(char delimiter) {
+            if (delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+                throw new CsvException("delimiter must not be a quote or a line break.");
+            }
+
+            this.delimiter = delimiter;
+            return this;
+        }
+
+        /**
+         * Reads the first record as the header, which cursors then skip.
+         */
+        public Builder header(boolean header) {
+            this.header = header;
+            return this;
+        }
+
+        /**
+         * Largest region mapped at once (1 GiB by default). Every record must fit in it.
+         */
+        public Builder mapSize(int mapSize) {
+            if (mapSize <= 0) {
+                throw new CsvException("mapSize must be greater than 0.");
+            }
+
+            this.mapSize = mapSize;
+            return this;
+        }
+
+        /**
+         * Opens and maps the file.
+         *
+         * @throws CsvException when the file cannot be opened or its header cannot be read.
+         */
+        public CsvReader build() {
+            if (path == null) {
+                throw new CsvException("path must not be null.");
+            }
+
+            return new CsvReader(this);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.shings.excelmaker;
+
+import com.shings.excelmaker.jfr.ExportPhaseEvent;
+import com.shings.excelmaker.metrics.GenerationPhase;
+
+/**
+ * A running phase, started by {@link AbstractMaker#startPhase} and ended by {@link AbstractMaker#endPhase}.
+ */
+final class GenerationSpan {
+    private final GenerationPhase phase;
+    private final String sheetName;
+    private final ExportPhaseEvent event;
+    private final long startNanos = System.nanoTime();
+
+    GenerationSpan(GenerationPhase phase, String sheetName, ExportPhaseEvent event) {
+        this.phase = phase;
+        this.sheetName = sheetName;
+        this.event = event;
+    }
+
+    GenerationPhase getPhase() {
+        return phase;
+    }
+
+    String getSheetName() {
+        return sheetName;
+    }
+
+    long end(long rows, long cells, long bytes) {
+        long durationNanos = System.nanoTime() - startNanos;
+        if (event != null) {
+            event.finish(rows, cells, bytes);
+        }
+        return durationNanos;
+    }
+}
@@ -0,0 +1,89 @@
+package com.shings.excelmaker;
+
+import com.shings.excelmaker.jfr.ExportEvent;
+import com.shings.excelmaker.util.CountingOutputStream;
+
+import java.io.OutputStream;
+
+/**
+ * Totals of one output call, collected for the {@code OUTPUT} event and the flight recorder {@link ExportEvent}.
+ * Phase events are reported on the generating thread, so the trace of the running call is kept in a thread local
+ * for the duration of the call.
+ */
+final class GenerationTrace {
+    private static final ThreadLocal<GenerationTrace> CURRENT = new ThreadLocal<>();
+
+    private final GenerationTrace previous;
+    private final ExportEvent event;
+    private final long startNanos = System.nanoTime();
+    private CountingOutputStream output;
+    private long rows;
+    private long cells;
+    private int sheets;
+    private boolean encrypted;
+
+    private GenerationTrace(GenerationTrace previous, ExportEvent event) {
+        this.previous = previous;
+        this.event = event;
+    }
+
+    /**
+     * @param event the started flight recorder event of the call, or {@code null} when it is not recorded
+     */
+    static GenerationTrace start(ExportEvent event) {
+        GenerationTrace trace = new GenerationTrace(CURRENT.get(), event);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static GenerationTrace current() {
+        return CURRENT.get();
+    }
+
+    OutputStream count(OutputStream out) {
+        output = new CountingOutputStream(out);
+        return output;
+    }
+
+    void addRendered(String sheetName, long rows, long cells) {
+        this.rows += rows;
+        this.cells += cells;
+        if (sheetName != null) {
+            sheets++;
+        }
+    }
+
+    void markEncrypted() {
+        encrypted = true;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    long getCells() {
+        return cells;
+    }
+
+    long getBytes() {
+        return output == null ? 0 : output.getCount();
+    }
+
+    void commitEvent() {
+        if (event != null) {
+            event.finish(rows, sheets, getBytes(), encrypted);
+        }
+    }
+
+    void end() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
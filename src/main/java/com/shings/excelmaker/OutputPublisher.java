@@ -0,0 +1,245 @@
+package com.shings.excelmaker;
+
+import com.shings.excelmaker.progress.CancellationToken;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Publishes generated content as {@link ByteBuffer} chunks, one subscriber per publisher.
+ * Generation runs on the executor once the subscriber first requests data, and the generating thread blocks
+ * (on a lock, never a monitor) whenever the subscriber has no outstanding demand, so at most one chunk
+ * is buffered regardless of how slow the subscriber is. Cancelling the subscription also cancels the generation's
+ * output token, so renderers stop at their next cancellation check instead of at the next full chunk.
+ */
+final class OutputPublisher implements Flow.Publisher<ByteBuffer> {
+    private final Generator generator;
+    private final BiFunction<String, Throwable, RuntimeException> exceptionFactory;
+    private final Executor executor;
+    private final int chunkSize;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    OutputPublisher(Generator generator, BiFunction<String, Throwable, RuntimeException> exceptionFactory, Executor executor, int chunkSize) {
+        this.generator = generator;
+        this.exceptionFactory = exceptionFactory;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber must not be null.");
+        }
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("This publisher supports only one subscriber."));
+            return;
+        }
+
+        ChunkSubscription subscription = new ChunkSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    @FunctionalInterface
+    interface Generator {
+        void generate(OutputStream out, CancellationToken cancellation) throws IOException;
+    }
+
+    private final class ChunkSubscription extends OutputStream implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition demandAvailable = lock.newCondition();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CancellationToken cancellation = new CancellationToken();
+        private byte[] chunk = new byte[chunkSize];
+        private int position;
+        private long demand;
+        private boolean cancelled;
+        private Throwable invalidRequest;
+
+        private ChunkSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (n <= 0) {
+                    if (invalidRequest == null) {
+                        invalidRequest = new IllegalArgumentException("Subscription request must be positive, but was " + n + ".");
+                    }
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                demandAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            if (started.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    cancel();
+                    subscriber.onError(exceptionFactory.apply("Failed to start generation.", e));
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancellation.cancel();
+            lock.lock();
+            try {
+                cancelled = true;
+                demandAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                generator.generate(this, cancellation);
+                if (position > 0) {
+                    emit();
+                }
+            } catch (CancelledException e) {
+                if (e.error != null) {
+                    subscriber.onError(e.error);
+                }
+                return;
+            } catch (IOException e) {
+                fail(exceptionFactory.apply("Failed to publish content.", e));
+                return;
+            } catch (RuntimeException | Error e) {
+                fail(e);
+                return;
+            }
+
+            if (!isCancelled()) {
+                subscriber.onComplete();
+            }
+        }
+
+        // Generators may wrap the cancellation in their own exception type, which is not worth reporting.
+        private void fail(Throwable error) {
+            lock.lock();
+            try {
+                if (cancelled && invalidRequest == null) {
+                    return;
+                }
+                cancelled = true;
+                if (invalidRequest != null) {
+                    error = invalidRequest;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            subscriber.onError(error);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (position == chunk.length) {
+                emit();
+            }
+
+            chunk[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (position == chunk.length) {
+                    emit();
+                }
+
+                int count = Math.min(length, chunk.length - position);
+                System.arraycopy(bytes, offset, chunk, position, count);
+                position += count;
+                offset += count;
+                length -= count;
+            }
+        }
+
+        private void emit() throws CancelledException {
+            awaitDemand();
+
+            ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, position);
+            chunk = new byte[chunkSize];
+            position = 0;
+            try {
+                subscriber.onNext(buffer);
+            } catch (RuntimeException e) {
+                // A throwing onNext cancels the subscription (Reactive Streams rule 2.13).
+                cancel();
+                throw new CancelledException(null);
+            }
+        }
+
+        private void awaitDemand() throws CancelledException {
+            lock.lock();
+            try {
+                while (demand == 0 && !cancelled && invalidRequest == null) {
+                    demandAvailable.awaitUninterruptibly();
+                }
+
+                if (invalidRequest != null) {
+                    cancelled = true;
+                    throw new CancelledException(invalidRequest);
+                }
+
+                if (cancelled) {
+                    throw new CancelledException(null);
+                }
+
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isCancelled() {
+            lock.lock();
+            try {
+                return cancelled;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Unwinds the generator when the subscriber goes away; never surfaces to callers.
+    private static final class CancelledException extends IOException {
+        private final transient Throwable error;
+
+        private CancelledException(Throwable error) {
+            super("Subscription cancelled.");
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.shings.excelmaker;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class SegmentedOutputStream extends OutputStream {
+    private static final int MAX_SEGMENT_SIZE = 4 * 1024 * 1024;
+    // Some VMs reserve header words in an array, so the largest safe length is a little below Integer.MAX_VALUE.
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final List<byte[]> segments = new ArrayList<>();
+    private byte[] current;
+    private int position;
+    private long size;
+
+    SegmentedOutputStream(int firstSegmentSize) {
+        this.current = new byte[Math.max(firstSegmentSize, 16)];
+        segments.add(current);
+    }
+
+    @Override
+    public void write(int b) {
+        if (position == current.length) {
+            nextSegment();
+        }
+
+        current[position++] = (byte) b;
+        size++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            if (position == current.length) {
+                nextSegment();
+            }
+
+            int chunk = Math.min(length, current.length - position);
+            System.arraycopy(bytes, offset, current, position, chunk);
+            position += chunk;
+            size += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    ByteSegments toSegments() {
+        return new ByteSegments(segments, position, size);
+    }
+
+    boolean isSingleSegment() {
+        return segments.size() == 1;
+    }
+
+    byte[] firstSegment() {
+        return segments.get(0);
+    }
+
+    boolean fitsInByteArray() {
+        return size <= MAX_ARRAY_SIZE;
+    }
+
+    byte[] toByteArray() {
+        if (!fitsInByteArray()) {
+            throw new IllegalStateException("Content of " + size + " bytes does not fit in a byte array.");
+        }
+
+        if (segments.size() == 1) {
+            return Arrays.copyOf(current, position);
+        }
+
+        byte[] bytes = new byte[(int) size];
+        int offset = 0;
+        for (int i = 0; i < segments.size() - 1; i++) {
+            byte[] segment = segments.get(i);
+            System.arraycopy(segment, 0, bytes, offset, segment.length);
+            offset += segment.length;
+        }
+        System.arraycopy(current, 0, bytes, offset, position);
+        return bytes;
+    }
+
+    private void nextSegment() {
+        current = new byte[Math.min(current.length * 2, MAX_SEGMENT_SIZE)];
+        segments.add(current);
+        position = 0;
+    }
+}
@@ -1,31 +1,82 @@
 package com.shings.excelmaker;
 
 import com.shings.excelmaker.exception.XlsxException;
+import com.shings.excelmaker.io.CompressionOptions;
+import com.shings.excelmaker.jfr.ExportPhaseEvent;
+import com.shings.excelmaker.metrics.GenerationListener;
+import com.shings.excelmaker.metrics.GenerationPhase;
+import com.shings.excelmaker.progress.CancellationToken;
+import com.shings.excelmaker.progress.ProgressListener;
+import com.shings.excelmaker.row.CellSink;
+import com.shings.excelmaker.row.RowProducer;
 import com.shings.excelmaker.util.CollectionCopyUtils;
+import com.shings.excelmaker.util.CountingOutputStream;
+import com.shings.excelmaker.util.ExcelDateUtils;
+import com.shings.excelmaker.util.ProgressTracker;
+import com.shings.excelmaker.xlsx.XlsxEncryptionStaging;
+import com.shings.excelmaker.xlsx.XlsxEngine;
+import com.shings.excelmaker.xlsx.XlsxGenerationProfile;
 import com.shings.excelmaker.xlsx.XlsxSheet;
 import com.shings.excelmaker.xlsx.XlsxSheetCell;
+import com.shings.excelmaker.xlsx.XlsxStyleStats;
+import com.shings.excelmaker.xlsx.ooxml.OoxmlWorkbookWriter;
+import com.shings.excelmaker.xlsx.poi.LeveledSXSSFWorkbook;
+import com.shings.excelmaker.xlsx.poi.ProfiledSXSSFWorkbook;
+import com.shings.excelmaker.xlsx.poi.RowWindowTuner;
+import com.shings.excelmaker.xlsx.poi.StreamingAgileEncryptor;
+import com.shings.excelmaker.xlsx.style.PoiStylePool;
 import org.apache.poi.poifs.crypt.EncryptionInfo;
 import org.apache.poi.poifs.crypt.EncryptionMode;
 import org.apache.poi.poifs.crypt.Encryptor;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 public final class XlsxMaker extends AbstractMaker<XlsxException> {
     private final List<XlsxSheet> sheets;
     private final String password;
+    private final XlsxEngine engine;
+    private final Consumer<XlsxStyleStats> styleStatsListener;
+    private final Executor sheetExecutor;
+    private final XlsxGenerationProfile generationProfile;
+    private final XlsxEncryptionStaging encryptionStaging;
+    private final long sharedStringsMaxBytes;
+    private final CompressionOptions compression;
+    private final ProgressListener progressListener;
+    private final long progressIntervalRows;
+    private final CancellationToken cancellationToken;
 
     private XlsxMaker(Builder builder) {
-        super(builder.fileName);
+        super(builder.fileName, builder.generationListener);
+        GenerationSpan build = startPhase(GenerationPhase.BUILD, null);
         this.sheets = CollectionCopyUtils.nullSafeCopyOf(builder.sheets);
         this.password = builder.password;
+        this.engine = builder.engine;
+        this.styleStatsListener = builder.styleStatsListener;
+        this.sheetExecutor = builder.sheetExecutor;
+        this.generationProfile = builder.generationProfile;
+        this.encryptionStaging = builder.encryptionStaging;
+        this.sharedStringsMaxBytes = builder.sharedStringsMaxBytes;
+        this.compression = builder.compression;
+        this.progressListener = builder.progressListener;
+        this.progressIntervalRows = builder.progressIntervalRows;
+        this.cancellationToken = builder.cancellationToken;
+        endPhase(build, 0, 0, 0);
     }
 
     public static Builder builder(String fileName) {
@@ -40,27 +91,73 @@ public final class XlsxMaker extends AbstractMaker<XlsxException> {
         return password;
     }
 
+    public XlsxEngine getEngine() {
+        return engine;
+    }
+
+    public XlsxEncryptionStaging getEncryptionStaging() {
+        return encryptionStaging;
+    }
+
+    public XlsxGenerationProfile getGenerationProfile() {
+        return generationProfile;
+    }
+
+    public long getSharedStringsMaxBytes() {
+        return sharedStringsMaxBytes;
+    }
+
+    public CompressionOptions getCompression() {
+        return compression;
+    }
+
     public File toTempFile() {
         return toTempFile(".xlsx");
     }
 
     @Override
-    protected void generate(OutputStream out) throws IOException {
-        try (SXSSFWorkbook workbook = new SXSSFWorkbook()) {
-            workbook.setCompressTempFiles(true);
-            fillWorkbook(workbook);
+    protected void generate(OutputStream out, CancellationToken outputCancellation) throws IOException {
+        ProgressTracker progress = ProgressTracker.of(getFileName(), progressListener, cancellationToken, outputCancellation, progressIntervalRows);
+        progress.checkCancelled();
+        OutputStream target = progress.count(out);
+        if (engine == XlsxEngine.NATIVE && supportsNativeEngine()) {
+            OoxmlWorkbookWriter.SheetListener sheetListener = isGenerationObserved() ? new NativeSheetListener() : null;
+            OoxmlWorkbookWriter writer = new OoxmlWorkbookWriter(sheets, sheetExecutor, sharedStringsMaxBytes, compression, sheetListener, progress);
+            writePackage(target, writer::write);
+            reportStyleStats(writer.getStyleStats());
+            progress.finish();
+            return;
+        }
 
-            if (password == null || password.isBlank()) {
-                workbook.write(out);
-                return;
+        try (SXSSFWorkbook workbook = createWorkbook()) {
+            try {
+                generateWithPoi(workbook, target, progress);
+            } finally {
+                // Temp files are deleted right away, also when the export fails or is cancelled.
+                workbook.dispose();
             }
 
-            writeEncryptedWorkbook(workbook, out, password);
-
         } catch (GeneralSecurityException e) {
 
             throw createException("Failed to generate XLSX workbook.", e);
         }
+        progress.finish();
+    }
+
+    private void generateWithPoi(SXSSFWorkbook workbook, OutputStream out, ProgressTracker progress) throws IOException, GeneralSecurityException {
+        PoiStylePool stylePool = new PoiStylePool(workbook);
+        fillWorkbook(workbook, stylePool, progress);
+        reportStyleStats(stylePool.stats());
+
+        if (password == null || password.isBlank()) {
+            writePackage(out, workbook::write);
+            return;
+        }
+
+        GenerationSpan encryption = startPhase(GenerationPhase.ENCRYPTION, null);
+        CountingOutputStream counted = new CountingOutputStream(out);
+        writeEncryptedWorkbook(workbook, counted, password);
+        endPhase(encryption, 0, 0, counted.getCount());
     }
 
     @Override
@@ -72,36 +169,134 @@ public final class XlsxMaker extends AbstractMaker<XlsxException> {
         return new XlsxException(message, cause);
     }
 
+    private void writePackage(OutputStream out, PackageWriter packageWriter) throws IOException {
+        if (!isGenerationObserved()) {
+            packageWriter.write(out);
+            return;
+        }
+
+        GenerationSpan packaging = startPhase(GenerationPhase.PACKAGE, null);
+        CountingOutputStream counted = new CountingOutputStream(out);
+        packageWriter.write(counted);
+        endPhase(packaging, 0, 0, counted.getCount());
+    }
+
+    // Native sheets are recorded on the thread that renders them, but reported to the listener on the calling thread.
+    private final class NativeSheetListener implements OoxmlWorkbookWriter.SheetListener {
+        @Override
+        public ExportPhaseEvent sheetStarted(String sheetName) {
+            return ExportPhaseEvent.start(XlsxMaker.class.getSimpleName(), getFileName(), GenerationPhase.RENDER, sheetName);
+        }
+
+        @Override
+        public void sheetRendered(String sheetName, long rows, long cells, long compressedBytes, long durationNanos) {
+            reportPhase(GenerationPhase.RENDER, sheetName, rows, cells, compressedBytes, durationNanos);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PackageWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private SXSSFWorkbook createWorkbook() {
+        if (generationProfile == null) {
+            if (compression.getLevel() != CompressionOptions.DEFAULT_LEVEL) {
+                return new LeveledSXSSFWorkbook(compression.getLevel());
+            }
+
+            SXSSFWorkbook workbook = new SXSSFWorkbook();
+            workbook.setCompressTempFiles(true);
+            return workbook;
+        }
+
+        int widestHeader = 0;
+        for (XlsxSheet sheet : sheets) {
+            widestHeader = Math.max(widestHeader, sheet.hasHeader() ? sheet.getHeaderCells().size() : 0);
+        }
+
+        return new ProfiledSXSSFWorkbook(generationProfile, RowWindowTuner.windowFor(generationProfile.getMemoryBudgetBytes(), widestHeader),
+                compression.getLevel());
+    }
+
+    private void reportStyleStats(XlsxStyleStats stats) {
+        if (styleStatsListener != null) {
+            styleStatsListener.accept(stats);
+        }
+    }
+
+    private boolean supportsNativeEngine() {
+        return password == null || password.isBlank();
+    }
+
     private void writeEncryptedWorkbook(SXSSFWorkbook workbook,
                                         OutputStream out,
                                         String password) throws IOException, GeneralSecurityException {
-        try (POIFSFileSystem fs = new POIFSFileSystem()) {
-            EncryptionInfo info = new EncryptionInfo(EncryptionMode.agile);
-            Encryptor encryptor = info.getEncryptor();
-            encryptor.confirmPassword(password);
-
-            try (OutputStream encryptorDataStream = encryptor.getDataStream(fs)) {
-                workbook.write(encryptorDataStream);
+        if (encryptionStaging == XlsxEncryptionStaging.MEMORY) {
+            try (POIFSFileSystem fs = new POIFSFileSystem()) {
+                encryptInto(fs, workbook, password);
+                fs.writeFilesystem(out);
             }
+            return;
+        }
 
-            fs.writeFilesystem(out);
+        // The cipher text is staged in a plain file and streamed into the compound file written around it.
+        Path staging = createEncryptionStagingFile();
+        try {
+            StreamingAgileEncryptor.encrypt(workbook, password, staging, out);
+        } finally {
+            Files.deleteIfExists(staging);
         }
     }
 
-    private void fillWorkbook(SXSSFWorkbook workbook) {
+    private Path createEncryptionStagingFile() throws IOException {
+        if (generationProfile != null && generationProfile.getTempDirectory() != null) {
+            Files.createDirectories(generationProfile.getTempDirectory());
+            return Files.createTempFile(generationProfile.getTempDirectory(), "excelmaker-encrypted", ".xlsx");
+        }
+
+        return Files.createTempFile("excelmaker-encrypted", ".xlsx");
+    }
+
+    private static void encryptInto(POIFSFileSystem fs, SXSSFWorkbook workbook, String password) throws IOException, GeneralSecurityException {
+        EncryptionInfo info = new EncryptionInfo(EncryptionMode.agile);
+        Encryptor encryptor = info.getEncryptor();
+        encryptor.confirmPassword(password);
+
+        try (OutputStream encryptorDataStream = encryptor.getDataStream(fs)) {
+            workbook.write(encryptorDataStream);
+        }
+    }
+
+    private void fillWorkbook(SXSSFWorkbook workbook, PoiStylePool stylePool, ProgressTracker progress) throws IOException {
         for (XlsxSheet sheetSpec : sheets) {
-            Sheet sheet = workbook.createSheet(sheetSpec.getSheetName());
-            if (!sheetSpec.hasHeader()) {
-                renderBody(sheet, sheetSpec.getRows(), false);
-                continue;
+            SXSSFSheet sheet = workbook.createSheet(sheetSpec.getSheetName());
+            RowWindowTuner windowTuner = null;
+            if (generationProfile != null) {
+                int expectedColumns = sheetSpec.hasHeader() ? sheetSpec.getHeaderCells().size() : 0;
+                windowTuner = new RowWindowTuner(sheet, generationProfile.getMemoryBudgetBytes(), expectedColumns);
+            }
+
+            GenerationSpan render = startPhase(GenerationPhase.RENDER, sheetSpec.getSheetName());
+            if (sheetSpec.hasHeader()) {
+                renderHeader(stylePool, sheet, sheetSpec.getHeaderCells());
             }
 
-            renderHeader(workbook, sheet, sheetSpec.getHeaderCells());
-            renderBody(sheet, sheetSpec.getRows(), true);
+            BodyRenderer renderer = renderBody(sheet, sheetSpec, stylePool, windowTuner, progress.rowCounter());
+            endPhase(render, renderer.renderedRows, renderer.renderedCells, 0);
+
+            if (windowTuner != null || isGenerationObserved()) {
+                // Each sheet gets the whole budget, so the previous sheet's window must be spilled first.
+                // When generation is observed the spill is done here too, so that it is timed as its own phase.
+                GenerationSpan flush = startPhase(GenerationPhase.FLUSH, sheetSpec.getSheetName());
+                sheet.flushRows();
+                endPhase(flush, 0, 0, 0);
+            }
+            progress.sheetCompleted();
         }
     }
 
-    private void renderHeader(SXSSFWorkbook workbook,
+    private void renderHeader(PoiStylePool stylePool,
                               Sheet sheet,
                               List<XlsxSheetCell> headerCells) {
         Row headerRow = sheet.createRow(0);
@@ -110,63 +305,136 @@ public final class XlsxMaker extends AbstractMaker<XlsxException> {
 
             Cell cell = headerRow.createCell(columnIndex);
             cell.setCellValue(headerCellSpec.getText());
+            cell.setCellStyle(stylePool.headerStyle(headerCellSpec));
+
+            if (headerCellSpec.getColumnWidth() != null) {
+                sheet.setColumnWidth(columnIndex, headerCellSpec.getColumnWidth());
+            }
+        }
+    }
+
+    private BodyRenderer renderBody(Sheet sheet, XlsxSheet sheetSpec, PoiStylePool stylePool, RowWindowTuner windowTuner,
+                                    ProgressTracker.RowCounter rowCounter) throws IOException {
+        BodyRenderer renderer = new BodyRenderer(sheet, stylePool, sheetSpec.hasHeader() ? 1 : 0, windowTuner, rowCounter);
+        try (RowProducer rows = sheetSpec.openRows()) {
+            renderer.render(rows);
 
-            CellStyle style = workbook.createCellStyle();
-            Font font = workbook.createFont();
-            font.setBold(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return renderer;
+    }
 
-            if (headerCellSpec.getFontColor() != null) {
-                font.setColor(headerCellSpec.getFontColor().toPoiColorIndex());
+    private static final class BodyRenderer implements CellSink {
+        private final Sheet sheet;
+        private final PoiStylePool stylePool;
+        private final RowWindowTuner windowTuner;
+        private final ProgressTracker.RowCounter rowCounter;
+        private int rowIndex;
+        private Row currentRow;
+        private int columnIndex;
+        private CellStyle dateStyle;
+        private CellStyle dateTimeStyle;
+        private long renderedRows;
+        private long renderedCells;
+
+        private BodyRenderer(Sheet sheet, PoiStylePool stylePool, int firstRowIndex, RowWindowTuner windowTuner,
+                             ProgressTracker.RowCounter rowCounter) {
+            this.sheet = sheet;
+            this.stylePool = stylePool;
+            this.rowIndex = firstRowIndex;
+            this.windowTuner = windowTuner;
+            this.rowCounter = rowCounter;
+        }
+
+        private void render(RowProducer rows) {
+            startRow();
+            while (rows.next(this)) {
+                if (windowTuner != null) {
+                    windowTuner.onRow(columnIndex);
+                }
+                renderedRows++;
+                renderedCells += columnIndex;
+                rowCounter.row();
+                rowIndex++;
+                startRow();
             }
-            style.setFont(font);
+            rowCounter.flush();
+        }
+
+        private void startRow() {
+            currentRow = null;
+            columnIndex = 0;
+        }
 
-            if (headerCellSpec.getBackgroundColor() != null) {
-                style.setFillForegroundColor(headerCellSpec.getBackgroundColor().toPoiColorIndex());
-                style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        @Override
+        public void text(String value) {
+            if (value == null) {
+                blank();
+                return;
             }
 
-            if (headerCellSpec.getHorizontalAlignment() != null) {
-                style.setAlignment(headerCellSpec.getHorizontalAlignment().toPoiAlignment());
+            nextCell().setCellValue(value);
+        }
+
+        @Override
+        public void number(long value) {
+            nextCell().setCellValue((double) value);
+        }
+
+        @Override
+        public void number(double value) {
+            nextCell().setCellValue(value);
+        }
+
+        @Override
+        public void bool(boolean value) {
+            nextCell().setCellValue(value);
+        }
+
+        @Override
+        public void date(LocalDate value) {
+            if (value == null) {
+                blank();
+                return;
             }
 
-            if (headerCellSpec.getBorder() != null) {
-                BorderStyle border = headerCellSpec.getBorder().toPoiBorder();
-                style.setBorderTop(border);
-                style.setBorderBottom(border);
-                style.setBorderLeft(border);
-                style.setBorderRight(border);
+            if (dateStyle == null) {
+                dateStyle = stylePool.dateStyle();
             }
 
-            cell.setCellStyle(style);
+            Cell cell = nextCell();
+            cell.setCellValue(ExcelDateUtils.toSerial(value));
+            cell.setCellStyle(dateStyle);
+        }
 
-            if (headerCellSpec.getColumnWidth() != null) {
-                sheet.setColumnWidth(columnIndex, headerCellSpec.getColumnWidth());
+        @Override
+        public void dateTime(LocalDateTime value) {
+            if (value == null) {
+                blank();
+                return;
+            }
+
+            if (dateTimeStyle == null) {
+                dateTimeStyle = stylePool.dateTimeStyle();
             }
+
+            Cell cell = nextCell();
+            cell.setCellValue(ExcelDateUtils.toSerial(value));
+            cell.setCellStyle(dateTimeStyle);
         }
-    }
 
-    private void renderBody(Sheet sheet,
-                            List<List<String>> rows,
-                            boolean hasHeader) {
-        if (rows == null || rows.isEmpty()) {
-            return;
+        @Override
+        public void blank() {
+            columnIndex++;
         }
 
-        int rowIndex = hasHeader ? 1 : 0;
-        for (List<String> row : rows) {
-            if (row == null || row.isEmpty()) {
-                rowIndex++;
-                continue;
+        private Cell nextCell() {
+            if (currentRow == null) {
+                currentRow = sheet.createRow(rowIndex);
             }
 
-            Row sheetRow = sheet.createRow(rowIndex++);
-            for (int columnIndex = 0; columnIndex < row.size(); columnIndex++) {
-                String value = row.get(columnIndex);
-                if (value != null) {
-                    Cell cell = sheetRow.createCell(columnIndex);
-                    cell.setCellValue(value);
-                }
-            }
+            return currentRow.createCell(columnIndex++);
         }
     }
 
@@ -174,6 +442,17 @@ public final class XlsxMaker extends AbstractMaker<XlsxException> {
         private final String fileName;
         private final List<XlsxSheet> sheets = new ArrayList<>();
         private String password;
+        private XlsxEngine engine = XlsxEngine.POI;
+        private Consumer<XlsxStyleStats> styleStatsListener;
+        private Executor sheetExecutor;
+        private XlsxGenerationProfile generationProfile;
+        private XlsxEncryptionStaging encryptionStaging = XlsxEncryptionStaging.TEMP_FILE;
+        private long sharedStringsMaxBytes;
+        private CompressionOptions compression = CompressionOptions.defaults();
+        private GenerationListener generationListener;
+        private ProgressListener progressListener;
+        private long progressIntervalRows = ProgressTracker.DEFAULT_REPORT_INTERVAL_ROWS;
+        private CancellationToken cancellationToken;
 
         public Builder(String fileName) {
             this.fileName = fileName;
@@ -235,7 +514,114 @@ public final class XlsxMaker extends AbstractMaker<XlsxException> {
             return this;
         }
 
+        public Builder engine(XlsxEngine engine) {
+            if (engine == null) {
+                throw new XlsxException("engine must not be null.");
+            }
+
+            this.engine = engine;
+            return this;
+        }
+
+        public Builder styleStatsListener(Consumer<XlsxStyleStats> styleStatsListener) {
+            this.styleStatsListener = styleStatsListener;
+            return this;
+        }
+
+        public Builder generationListener(GenerationListener generationListener) {
+            this.generationListener = generationListener;
+            return this;
+        }
+
+        public Builder progressListener(ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        /**
+         * Sets how many rows pass between progress reports, 10,000 by default.
+         */
+        public Builder progressInterval(long rows) {
+            if (rows <= 0) {
+                throw new XlsxException("rows must be greater than 0.");
+            }
+
+            this.progressIntervalRows = rows;
+            return this;
+        }
+
+        public Builder cancellationToken(CancellationToken cancellationToken) {
+            this.cancellationToken = cancellationToken;
+            return this;
+        }
+
+        /**
+         * Renders the sheets of the native engine on {@code executor}, each into its own temp file.
+         * Requires the NATIVE engine without a password; {@link #build()} rejects any other combination.
+         */
+        public Builder parallelSheets(Executor executor) {
+            if (executor == null) {
+                throw new XlsxException("executor must not be null.");
+            }
+
+            this.sheetExecutor = executor;
+            return this;
+        }
+
+        public Builder encryptionStaging(XlsxEncryptionStaging encryptionStaging) {
+            if (encryptionStaging == null) {
+                throw new XlsxException("encryptionStaging must not be null.");
+            }
+
+            this.encryptionStaging = encryptionStaging;
+            return this;
+        }
+
+        public Builder generationProfile(XlsxGenerationProfile generationProfile) {
+            if (generationProfile == null) {
+                throw new XlsxException("generationProfile must not be null.");
+            }
+
+            this.generationProfile = generationProfile;
+            return this;
+        }
+
+        /**
+         * Writes repeated strings of the native engine once, in a shared-strings table of at most {@code maxBytes}
+         * estimated heap. Once the table is full, strings not already in it are written inline.
+         * Requires the NATIVE engine without a password; {@link #build()} rejects any other combination.
+         */
+        public Builder sharedStrings(long maxBytes) {
+            if (maxBytes <= 0) {
+                throw new XlsxException("maxBytes must be greater than 0.");
+            }
+
+            this.sharedStringsMaxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Sets the deflate level of the package entries. Parallel block compression applies to the native engine;
+         * the POI engine only uses the level.
+         */
+        public Builder compression(CompressionOptions compression) {
+            if (compression == null) {
+                throw new XlsxException("compression must not be null.");
+            }
+
+            this.compression = compression;
+            return this;
+        }
+
         public XlsxMaker build() {
+            boolean encrypted = password != null && !password.isBlank();
+            if (sharedStringsMaxBytes > 0 && (engine != XlsxEngine.NATIVE || encrypted)) {
+                throw new XlsxException("sharedStrings(long) requires the NATIVE engine and no password.");
+            }
+            if (sheetExecutor != null && (engine != XlsxEngine.NATIVE || encrypted)) {
+                throw new XlsxException("parallelSheets(Executor) requires the NATIVE engine and no password.");
+            }
+
             return new XlsxMaker(this);
         }
     }
@@ -0,0 +1,19 @@
+package com.shings.excelmaker.batch;
+
+public final class BatchExportFailure {
+    private final BatchExportJob job;
+    private final RuntimeException cause;
+
+    BatchExportFailure(BatchExportJob job, RuntimeException cause) {
+        this.job = job;
+        this.cause = cause;
+    }
+
+    public BatchExportJob getJob() {
+        return job;
+    }
+
+    public RuntimeException getCause() {
+        return cause;
+    }
+}
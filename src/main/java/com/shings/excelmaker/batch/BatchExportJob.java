@@ -0,0 +1,35 @@
+package com.shings.excelmaker.batch;
+
+import com.shings.excelmaker.AbstractMaker;
+
+import java.nio.file.Path;
+
+public final class BatchExportJob {
+    private final AbstractMaker<?> maker;
+    private final Path targetPath;
+
+    private BatchExportJob(AbstractMaker<?> maker, Path targetPath) {
+        this.maker = maker;
+        this.targetPath = targetPath;
+    }
+
+    public static BatchExportJob of(AbstractMaker<?> maker, Path targetPath) {
+        if (maker == null) {
+            throw new IllegalArgumentException("maker must not be null.");
+        }
+
+        if (targetPath == null) {
+            throw new IllegalArgumentException("targetPath must not be null.");
+        }
+
+        return new BatchExportJob(maker, targetPath);
+    }
+
+    public AbstractMaker<?> getMaker() {
+        return maker;
+    }
+
+    public Path getTargetPath() {
+        return targetPath;
+    }
+}
@@ -0,0 +1,72 @@
+package com.shings.excelmaker.batch;
+
+import java.time.Duration;
+import java.util.List;
+
+public final class BatchExportReport {
+    private final long succeeded;
+    private final long failed;
+    private final long skipped;
+    private final long bytesWritten;
+    private final Duration elapsed;
+    private final List<BatchExportFailure> failures;
+
+    BatchExportReport(long succeeded, long failed, long skipped, long bytesWritten, Duration elapsed, List<BatchExportFailure> failures) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.skipped = skipped;
+        this.bytesWritten = bytesWritten;
+        this.elapsed = elapsed;
+        this.failures = List.copyOf(failures);
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public List<BatchExportFailure> getFailures() {
+        return failures;
+    }
+
+    public double jobsPerSecond() {
+        return perSecond(succeeded + failed);
+    }
+
+    public double bytesPerSecond() {
+        return perSecond(bytesWritten);
+    }
+
+    private double perSecond(long count) {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0.0 : count * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchExportReport{" +
+                "succeeded=" + succeeded +
+                ", failed=" + failed +
+                ", skipped=" + skipped +
+                ", bytesWritten=" + bytesWritten +
+                ", elapsed=" + elapsed +
+                ", jobsPerSecond=" + jobsPerSecond() +
+                ", bytesPerSecond=" + bytesPerSecond() +
+                '}';
+    }
+}
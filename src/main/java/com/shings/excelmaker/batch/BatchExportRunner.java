@@ -0,0 +1,232 @@
+package com.shings.excelmaker.batch;
+
+import com.shings.excelmaker.io.FileOutputOptions;
+import com.shings.excelmaker.util.AsyncExecutors;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Runs many exports with a fixed number of jobs in flight.
+ * Each job is its own task on the executor, and a permit is taken before the next job is pulled from the source,
+ * so any executor works, including one that runs tasks on the calling thread. While every permit is in use, up to
+ * {@code queueCapacity} further jobs are pulled ahead, so a lazily built stream of large makers never holds more
+ * than {@code parallelism + queueCapacity + 1} makers at once. A failing job is recorded in the report and does not
+ * stop the others.
+ */
+public final class BatchExportRunner {
+    private final int parallelism;
+    private final int queueCapacity;
+    private final Executor executor;
+    private final FileOutputOptions fileOutputOptions;
+
+    private BatchExportRunner(Builder builder) {
+        this.parallelism = builder.parallelism;
+        this.queueCapacity = builder.queueCapacity;
+        this.executor = builder.executor;
+        this.fileOutputOptions = builder.fileOutputOptions;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public BatchExportReport run(Stream<BatchExportJob> jobs) {
+        if (jobs == null) {
+            throw new IllegalArgumentException("jobs must not be null.");
+        }
+
+        try (Stream<BatchExportJob> source = jobs) {
+            return run(source.iterator());
+        }
+    }
+
+    private BatchExportReport run(Iterator<BatchExportJob> jobs) {
+        long startNanos = System.nanoTime();
+        Run run = new Run();
+        Semaphore permits = new Semaphore(parallelism);
+        ArrayDeque<BatchExportJob> pulledAhead = new ArrayDeque<>();
+
+        try {
+            while (!run.isStopped()) {
+                if (pulledAhead.isEmpty()) {
+                    if (!jobs.hasNext()) {
+                        break;
+                    }
+                    pulledAhead.add(nextJob(jobs));
+                }
+
+                // Pull further jobs ahead while every permit is in use, then wait for one.
+                while (!permits.tryAcquire()) {
+                    if (pulledAhead.size() <= queueCapacity && jobs.hasNext()) {
+                        pulledAhead.add(nextJob(jobs));
+                    } else {
+                        permits.acquire();
+                        break;
+                    }
+                }
+
+                submit(pulledAhead.poll(), run, permits);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.stop();
+        } finally {
+            run.skipped.add(pulledAhead.size());
+            // Wait for the jobs still running; the interrupt status is kept.
+            permits.acquireUninterruptibly(parallelism);
+        }
+
+        Error fatal = run.fatal.get();
+        if (fatal != null) {
+            throw fatal;
+        }
+
+        return new BatchExportReport(run.succeeded.sum(), run.failed.sum(), run.skipped.sum(), run.bytesWritten.sum(),
+                Duration.ofNanos(System.nanoTime() - startNanos), new ArrayList<>(run.failures));
+    }
+
+    private static BatchExportJob nextJob(Iterator<BatchExportJob> jobs) {
+        BatchExportJob job = jobs.next();
+        if (job == null) {
+            throw new IllegalArgumentException("jobs must not contain null.");
+        }
+
+        return job;
+    }
+
+    private void submit(BatchExportJob job, Run run, Semaphore permits) {
+        try {
+            executor.execute(() -> {
+                try {
+                    if (run.isStopped()) {
+                        run.skipped.increment();
+                    } else {
+                        runJob(job, run);
+                    }
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            run.failed.increment();
+            run.failures.add(new BatchExportFailure(job, e));
+        }
+    }
+
+    private void runJob(BatchExportJob job, Run run) {
+        try {
+            job.getMaker().toPath(job.getTargetPath(), fileOutputOptions);
+            run.succeeded.increment();
+            run.bytesWritten.add(sizeOf(job));
+
+        } catch (RuntimeException e) {
+            run.failed.increment();
+            run.failures.add(new BatchExportFailure(job, e));
+
+        } catch (Error e) {
+            // An Error (typically OutOfMemoryError) is not isolated to one job; stop feeding and rethrow from run().
+            run.failed.increment();
+            run.fatal.compareAndSet(null, e);
+            run.stop();
+        }
+    }
+
+    private static long sizeOf(BatchExportJob job) {
+        try {
+            return Files.size(job.getTargetPath());
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static final class Run {
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder bytesWritten = new LongAdder();
+        private final ConcurrentLinkedQueue<BatchExportFailure> failures = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<Error> fatal = new AtomicReference<>();
+        private final AtomicBoolean stopped = new AtomicBoolean();
+
+        private boolean isStopped() {
+            return stopped.get();
+        }
+
+        private void stop() {
+            stopped.set(true);
+        }
+    }
+
+    public static final class Builder {
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = Runtime.getRuntime().availableProcessors();
+        private Executor executor = AsyncExecutors.defaultExecutor();
+        private FileOutputOptions fileOutputOptions = FileOutputOptions.defaults();
+
+        private Builder() {
+        }
+
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be greater than 0.");
+            }
+
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("queueCapacity must be greater than 0.");
+            }
+
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder executor(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor must not be null.");
+            }
+
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder fileOutputOptions(FileOutputOptions fileOutputOptions) {
+            if (fileOutputOptions == null) {
+                throw new IllegalArgumentException("fileOutputOptions must not be null.");
+            }
+
+            this.fileOutputOptions = fileOutputOptions;
+            return this;
+        }
+
+        public BatchExportRunner build() {
+            return new BatchExportRunner(this);
+        }
+    }
+}
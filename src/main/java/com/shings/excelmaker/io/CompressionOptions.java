@@ -0,0 +1,108 @@
+package com.shings.excelmaker.io;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Controls how generated output is deflated: the compression level and, optionally, parallel compression.
+ * With an executor, large entries are split into blocks of {@code blockSize} bytes that are compressed concurrently
+ * and concatenated into a single deflate stream, so the output remains a regular ZIP/GZIP file.
+ */
+public final class CompressionOptions {
+    public static final int DEFAULT_LEVEL = -1;
+    public static final int STORED = 0;
+    public static final int BEST_SPEED = 1;
+    public static final int BEST_COMPRESSION = 9;
+
+    private static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+    private static final int MIN_BLOCK_SIZE = 32 * 1024;
+    private static final CompressionOptions DEFAULTS = builder().build();
+    private static final CompressionOptions STORED_OPTIONS = builder().level(STORED).build();
+
+    private final int level;
+    private final Executor executor;
+    private final int blockSize;
+
+    private CompressionOptions(Builder builder) {
+        this.level = builder.level;
+        this.executor = builder.executor;
+        this.blockSize = builder.blockSize;
+    }
+
+    public static CompressionOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * No compression, for output that is only transferred between internal systems.
+     */
+    public static CompressionOptions stored() {
+        return STORED_OPTIONS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isStored() {
+        return level == STORED;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public static final class Builder {
+        private int level = DEFAULT_LEVEL;
+        private Executor executor;
+        private int blockSize = DEFAULT_BLOCK_SIZE;
+
+        private Builder() {
+        }
+
+        /**
+         * Deflate level from {@link #STORED} (0) to {@link #BEST_COMPRESSION} (9), or {@link #DEFAULT_LEVEL}.
+         */
+        public Builder level(int level) {
+            if (level < DEFAULT_LEVEL || level > BEST_COMPRESSION) {
+                throw new IllegalArgumentException("level must be between -1 and 9.");
+            }
+
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * Compresses blocks of large entries on the given executor. Each block is primed with the last 32 KB
+         * of the previous one, so the ratio stays close to single-threaded compression.
+         */
+        public Builder parallel(Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor must not be null.");
+            }
+
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder blockSize(int blockSize) {
+            if (blockSize < MIN_BLOCK_SIZE) {
+                throw new IllegalArgumentException("blockSize must be at least " + MIN_BLOCK_SIZE + ".");
+            }
+
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        public CompressionOptions build() {
+            return new CompressionOptions(this);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.shings.excelmaker.io;
+
+/**
+ * How a generated file is synced to the storage device before the output method returns.
+ */
+public enum FileForcePolicy {
+    /**
+     * Leave syncing to the operating system.
+     */
+    NONE,
+
+    /**
+     * Force the file content, but not its metadata, on close ({@code FileChannel.force(false)}).
+     */
+    CONTENT,
+
+    /**
+     * Force the file content and metadata on close ({@code FileChannel.force(true)}).
+     */
+    CONTENT_AND_METADATA
+}
@@ -0,0 +1,84 @@
+package com.shings.excelmaker.io;
+
+/**
+ * Controls how {@code toPath}/{@code toTempFile} write to the file system.
+ * Output is staged in a heap buffer of {@code bufferSize} bytes and written to a {@code FileChannel} in whole blocks.
+ */
+public final class FileOutputOptions {
+    private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    private static final FileOutputOptions DEFAULTS = builder().build();
+
+    private final int bufferSize;
+    private final long preallocateBytes;
+    private final FileForcePolicy forcePolicy;
+
+    private FileOutputOptions(Builder builder) {
+        this.bufferSize = builder.bufferSize;
+        this.preallocateBytes = builder.preallocateBytes;
+        this.forcePolicy = builder.forcePolicy;
+    }
+
+    public static FileOutputOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public long getPreallocateBytes() {
+        return preallocateBytes;
+    }
+
+    public FileForcePolicy getForcePolicy() {
+        return forcePolicy;
+    }
+
+    public static final class Builder {
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private long preallocateBytes;
+        private FileForcePolicy forcePolicy = FileForcePolicy.NONE;
+
+        private Builder() {
+        }
+
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize <= 0) {
+                throw new IllegalArgumentException("bufferSize must be greater than 0.");
+            }
+
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Extends the file to the expected size before writing, so the file size is not updated on every block.
+         * The file is truncated to the actual size when generation completes.
+         */
+        public Builder preallocate(long expectedBytes) {
+            if (expectedBytes < 0) {
+                throw new IllegalArgumentException("expectedBytes must not be negative.");
+            }
+
+            this.preallocateBytes = expectedBytes;
+            return this;
+        }
+
+        public Builder forcePolicy(FileForcePolicy forcePolicy) {
+            if (forcePolicy == null) {
+                throw new IllegalArgumentException("forcePolicy must not be null.");
+            }
+
+            this.forcePolicy = forcePolicy;
+            return this;
+        }
+
+        public FileOutputOptions build() {
+            return new FileOutputOptions(this);
+        }
+    }
+}
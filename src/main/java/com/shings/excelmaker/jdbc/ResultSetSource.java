@@ -0,0 +1,216 @@
+package com.shings.excelmaker.jdbc;
+
+import com.shings.excelmaker.row.CellSink;
+import com.shings.excelmaker.row.RowProducer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams the rows of a {@link ResultSet} as typed cells.
+ * Only the current row is held in memory; how many rows the driver buffers is set by the fetch size.
+ * Integer columns are written as {@code long}, floating point columns and decimals of up to 15 digits as {@code double},
+ * {@code DATE}/{@code TIMESTAMP} as dates, booleans as booleans and everything else as {@code getString}.
+ * Wider decimals are written as text so that no digits are lost. SQL {@code NULL} becomes a blank cell.
+ *
+ * <p>A source can be consumed only once. The result set is closed when its rows have been written;
+ * the statement and connection stay with the caller.
+ */
+public final class ResultSetSource {
+    private static final int TEXT = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+    private static final int DECIMAL = 3;
+    private static final int BOOLEAN = 4;
+    private static final int DATE = 5;
+    private static final int DATE_TIME = 6;
+
+    private static final int MAX_DOUBLE_PRECISION = 15;
+
+    private final ResultSet resultSet;
+    private final List<String> columnNames;
+    private final int[] columnKinds;
+    private final AtomicBoolean taken = new AtomicBoolean(false);
+
+    private ResultSetSource(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        List<String> columnNames = new ArrayList<>(columnCount);
+        this.columnKinds = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames.add(metaData.getColumnLabel(i + 1));
+            columnKinds[i] = kindOf(metaData, i + 1);
+        }
+
+        this.resultSet = resultSet;
+        this.columnNames = Collections.unmodifiableList(columnNames);
+    }
+
+    public static ResultSetSource of(ResultSet resultSet) throws SQLException {
+        if (resultSet == null) {
+            throw new IllegalArgumentException("resultSet must not be null.");
+        }
+
+        return new ResultSetSource(resultSet);
+    }
+
+    /**
+     * @param fetchSize number of rows the driver fetches per round trip, passed to {@link ResultSet#setFetchSize(int)}.
+     */
+    public static ResultSetSource of(ResultSet resultSet, int fetchSize) throws SQLException {
+        if (resultSet == null) {
+            throw new IllegalArgumentException("resultSet must not be null.");
+        }
+
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be greater than 0.");
+        }
+
+        resultSet.setFetchSize(fetchSize);
+        return new ResultSetSource(resultSet);
+    }
+
+    /**
+     * Column labels from the result set metadata, i.e. the {@code AS} alias when there is one.
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public int getColumnCount() {
+        return columnKinds.length;
+    }
+
+    public boolean isConsumed() {
+        return taken.get();
+    }
+
+    /**
+     * Returns the producer of the body rows. Closing it closes the result set.
+     *
+     * @throws IllegalStateException when the rows have already been taken.
+     */
+    public RowProducer rows() {
+        if (!taken.compareAndSet(false, true)) {
+            throw new IllegalStateException("The result set has already been consumed. A result set can be written only once.");
+        }
+
+        return new RowProducer() {
+            @Override
+            public boolean next(CellSink sink) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+
+                    writeRow(sink);
+                    return true;
+
+                } catch (SQLException e) {
+                    throw new UncheckedIOException(new IOException("Failed to read the result set.", e));
+                }
+            }
+
+            @Override
+            public void close() {
+                try {
+                    resultSet.close();
+                } catch (SQLException e) {
+                    throw new UncheckedIOException(new IOException("Failed to close the result set.", e));
+                }
+            }
+        };
+    }
+
+    private void writeRow(CellSink sink) throws SQLException {
+        for (int i = 0; i < columnKinds.length; i++) {
+            int column = i + 1;
+            switch (columnKinds[i]) {
+                case LONG: {
+                    long value = resultSet.getLong(column);
+                    if (resultSet.wasNull()) {
+                        sink.blank();
+                    } else {
+                        sink.number(value);
+                    }
+                    break;
+                }
+                case DOUBLE: {
+                    double value = resultSet.getDouble(column);
+                    if (resultSet.wasNull()) {
+                        sink.blank();
+                    } else {
+                        sink.number(value);
+                    }
+                    break;
+                }
+                case DECIMAL: {
+                    BigDecimal value = resultSet.getBigDecimal(column);
+                    if (value == null) {
+                        sink.blank();
+                    } else if (value.precision() <= MAX_DOUBLE_PRECISION) {
+                        sink.number(value.doubleValue());
+                    } else {
+                        sink.text(value.toPlainString());
+                    }
+                    break;
+                }
+                case BOOLEAN: {
+                    boolean value = resultSet.getBoolean(column);
+                    if (resultSet.wasNull()) {
+                        sink.blank();
+                    } else {
+                        sink.bool(value);
+                    }
+                    break;
+                }
+                case DATE:
+                    sink.date(resultSet.getObject(column, LocalDate.class));
+                    break;
+                case DATE_TIME:
+                    sink.dateTime(resultSet.getObject(column, LocalDateTime.class));
+                    break;
+                default:
+                    sink.text(resultSet.getString(column));
+                    break;
+            }
+        }
+    }
+
+    private static int kindOf(ResultSetMetaData metaData, int column) throws SQLException {
+        switch (metaData.getColumnType(column)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return DECIMAL;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.DATE:
+                return DATE;
+            case Types.TIMESTAMP:
+                return DATE_TIME;
+            default:
+                return TEXT;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.shings.excelmaker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One output call of a maker ({@code toBytes}, {@code toPath}, ...), from the first byte generated to the last
+ * byte written.
+ */
+@Name("com.shings.excelmaker.Export")
+@Label("Export")
+@Category("ExcelMaker")
+@Description("One output call of a CsvMaker or XlsxMaker")
+@StackTrace(false)
+public final class ExportEvent extends jdk.jfr.Event {
+    @Label("Maker Type")
+    private String makerType;
+
+    @Label("File Name")
+    private String fileName;
+
+    @Label("Output")
+    @Description("Output method, such as toBytes or toPath")
+    private String output;
+
+    @Label("Rows")
+    private long rows;
+
+    @Label("Sheets")
+    private int sheets;
+
+    @Label("Bytes Written")
+    @DataAmount
+    private long bytes;
+
+    @Label("Encrypted")
+    private boolean encrypted;
+
+    /**
+     * Returns a started event, or {@code null} when the event is not being recorded.
+     */
+    public static ExportEvent start(String makerType, String fileName, String output) {
+        ExportEvent event = new ExportEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.makerType = makerType;
+        event.fileName = fileName;
+        event.output = output;
+        event.begin();
+        return event;
+    }
+
+    public void finish(long rows, int sheets, long bytes, boolean encrypted) {
+        this.rows = rows;
+        this.sheets = sheets;
+        this.bytes = bytes;
+        this.encrypted = encrypted;
+        commit();
+    }
+}
@@ -0,0 +1,69 @@
+package com.shings.excelmaker.jfr;
+
+import com.shings.excelmaker.metrics.GenerationPhase;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One {@link GenerationPhase} of an export, recorded on the thread that runs it.
+ */
+@Name("com.shings.excelmaker.ExportPhase")
+@Label("Export Phase")
+@Category("ExcelMaker")
+@Description("One phase of a CsvMaker or XlsxMaker export, such as rendering a sheet or encrypting the workbook")
+@StackTrace(false)
+public final class ExportPhaseEvent extends jdk.jfr.Event {
+    @Label("Maker Type")
+    private String makerType;
+
+    @Label("File Name")
+    private String fileName;
+
+    @Label("Phase")
+    private String phase;
+
+    @Label("Sheet Name")
+    private String sheetName;
+
+    @Label("Rows")
+    private long rows;
+
+    @Label("Cells")
+    private long cells;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    public static boolean isRecording() {
+        return new ExportPhaseEvent().isEnabled();
+    }
+
+    /**
+     * Returns a started event, or {@code null} when the event is not being recorded.
+     */
+    public static ExportPhaseEvent start(String makerType, String fileName, GenerationPhase phase, String sheetName) {
+        ExportPhaseEvent event = new ExportPhaseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.makerType = makerType;
+        event.fileName = fileName;
+        event.phase = phase.name();
+        event.sheetName = sheetName;
+        event.begin();
+        return event;
+    }
+
+    public void finish(long rows, long cells, long bytes) {
+        this.rows = rows;
+        this.cells = cells;
+        this.bytes = bytes;
+        commit();
+    }
+}
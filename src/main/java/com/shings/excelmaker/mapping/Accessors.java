@@ -0,0 +1,151 @@
+package com.shings.excelmaker.mapping;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compiles property reads into functional interfaces once per class.
+ * Members of public classes become {@link LambdaMetafactory} lambdas, which the JIT inlines like a direct call.
+ * Members of classes this module cannot access, such as private records, are read through an exact-typed
+ * {@link MethodHandle} instead.
+ */
+final class Accessors {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private Accessors() {
+    }
+
+    static MethodHandle unreflect(Member member) {
+        Class<?> declaringClass = member.getDeclaringClass();
+        LOOKUP.lookupClass().getModule().addReads(declaringClass.getModule());
+
+        try {
+            MethodHandles.Lookup lookup;
+            try {
+                lookup = MethodHandles.privateLookupIn(declaringClass, LOOKUP);
+            } catch (IllegalAccessException e) {
+                lookup = MethodHandles.publicLookup();
+            }
+
+            return member instanceof Method ? lookup.unreflect((Method) member) : lookup.unreflectGetter((Field) member);
+
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot read " + member + ". Make it public or open its package to com.shings.excelmaker.", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static ToLongFunction<Object> longGetter(MethodHandle getter) {
+        Object lambda = lambda(ToLongFunction.class, "applyAsLong", long.class, getter);
+        if (lambda != null) {
+            return (ToLongFunction<Object>) lambda;
+        }
+
+        MethodHandle exact = getter.asType(MethodType.methodType(long.class, Object.class));
+        return bean -> {
+            try {
+                return (long) exact.invokeExact(bean);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    static ToDoubleFunction<Object> doubleGetter(MethodHandle getter) {
+        Object lambda = lambda(ToDoubleFunction.class, "applyAsDouble", double.class, getter);
+        if (lambda != null) {
+            return (ToDoubleFunction<Object>) lambda;
+        }
+
+        MethodHandle exact = getter.asType(MethodType.methodType(double.class, Object.class));
+        return bean -> {
+            try {
+                return (double) exact.invokeExact(bean);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    static Predicate<Object> booleanGetter(MethodHandle getter) {
+        Object lambda = lambda(Predicate.class, "test", boolean.class, getter);
+        if (lambda != null) {
+            return (Predicate<Object>) lambda;
+        }
+
+        MethodHandle exact = getter.asType(MethodType.methodType(boolean.class, Object.class));
+        return bean -> {
+            try {
+                return (boolean) exact.invokeExact(bean);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    static Function<Object, Object> objectGetter(MethodHandle getter) {
+        Object lambda = lambda(Function.class, "apply", Object.class, getter);
+        if (lambda != null) {
+            return (Function<Object, Object>) lambda;
+        }
+
+        MethodHandle exact = getter.asType(MethodType.methodType(Object.class, Object.class));
+        return bean -> {
+            try {
+                return exact.invokeExact(bean);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    // Returns null when the getter cannot be linked from this module, e.g. a member of a non-public class.
+    private static Object lambda(Class<?> functionalInterface, String methodName, Class<?> erasedReturnType, MethodHandle getter) {
+        Class<?> declaringClass = getter.type().parameterType(0);
+        try {
+            LOOKUP.accessClass(declaringClass);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+
+        MethodType instantiatedType = MethodType.methodType(erasedReturnType, declaringClass);
+        CallSite callSite;
+        try {
+            callSite = LambdaMetafactory.metafactory(LOOKUP, methodName, MethodType.methodType(functionalInterface),
+                    MethodType.methodType(erasedReturnType, Object.class), getter, instantiatedType);
+        } catch (LambdaConversionException | IllegalArgumentException e) {
+            return null;
+        }
+
+        try {
+            return callSite.getTarget().invoke();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+
+        return new IllegalStateException("Failed to read a mapped column.", e);
+    }
+}
@@ -0,0 +1,30 @@
+package com.shings.excelmaker.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a record component, field or getter as a column of the rows written by {@link RowMapper}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.RECORD_COMPONENT, ElementType.FIELD, ElementType.METHOD})
+public @interface ExcelColumn {
+    /**
+     * Header text; the property name when empty.
+     */
+    String value() default "";
+
+    /**
+     * Position of the column. Columns with the same order keep their declaration order.
+     */
+    int order() default Integer.MAX_VALUE;
+
+    /**
+     * XLSX column width, in the unit of {@code XlsxSheetCell.Builder.columnWidth}; 0 keeps the default width.
+     */
+    int width() default 0;
+}
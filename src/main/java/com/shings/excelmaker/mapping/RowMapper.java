@@ -0,0 +1,299 @@
+package com.shings.excelmaker.mapping;
+
+import com.shings.excelmaker.row.CellSink;
+import com.shings.excelmaker.row.RowProducer;
+import com.shings.excelmaker.xlsx.XlsxSheetCell;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Writes objects as rows, one column per {@link ExcelColumn} property.
+ * Columns are discovered once per class and read through precompiled accessors, so each row goes straight from the
+ * object to the output without reflection or an intermediate {@code List<String>}.
+ * Primitive and {@code String}/{@code LocalDate}/{@code LocalDateTime} properties keep their type; boxed numbers,
+ * {@code Boolean} and enums are written by their runtime type and anything else as {@code toString()}.
+ *
+ * <p>Annotated fields are read through their public getter when there is one.
+ * Private members and non-public classes in a named module need their package opened to {@code com.shings.excelmaker}.
+ */
+public final class RowMapper<T> {
+    private static final ClassValue<RowMapper<?>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected RowMapper<?> computeValue(Class<?> type) {
+            return new RowMapper<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final Column[] columns;
+    private final List<String> columnNames;
+    private final List<XlsxSheetCell> headerCells;
+
+    private RowMapper(Class<T> type) {
+        List<Property> properties = type.isRecord() ? recordProperties(type) : beanProperties(type);
+        if (properties.isEmpty()) {
+            throw new IllegalArgumentException(type.getName() + " has no @ExcelColumn properties.");
+        }
+
+        properties.sort(Comparator.comparingInt(property -> property.annotation.order()));
+
+        this.type = type;
+        this.columns = new Column[properties.size()];
+        List<String> columnNames = new ArrayList<>(properties.size());
+        List<XlsxSheetCell> headerCells = new ArrayList<>(properties.size());
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            String columnName = property.annotation.value().isEmpty() ? property.name : property.annotation.value();
+            XlsxSheetCell.Builder headerCell = XlsxSheetCell.builder(columnName);
+            if (property.annotation.width() != 0) {
+                headerCell.columnWidth(property.annotation.width());
+            }
+
+            columns[i] = column(property.member, property.valueType);
+            columnNames.add(columnName);
+            headerCells.add(headerCell.build());
+        }
+
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.headerCells = Collections.unmodifiableList(headerCells);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> of(Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null.");
+        }
+
+        return (RowMapper<T>) MAPPERS.get(type);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Header cells named and sized from the {@link ExcelColumn} annotations.
+     */
+    public List<XlsxSheetCell> getHeaderCells() {
+        return headerCells;
+    }
+
+    public void writeRow(T value, CellSink sink) {
+        if (value == null) {
+            throw new IllegalArgumentException("Rows of " + type.getName() + " must not be null.");
+        }
+
+        for (Column column : columns) {
+            column.write(value, sink);
+        }
+    }
+
+    public RowProducer rows(Iterable<? extends T> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("values must not be null.");
+        }
+
+        return rows(values.iterator(), () -> {
+        });
+    }
+
+    /**
+     * Produces one row per element; closing the producer closes the stream.
+     */
+    public RowProducer rows(Stream<? extends T> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("values must not be null.");
+        }
+
+        return rows(values.iterator(), values::close);
+    }
+
+    public RowProducer rows(Iterator<? extends T> values, Runnable onClose) {
+        if (values == null) {
+            throw new IllegalArgumentException("values must not be null.");
+        }
+
+        return new RowProducer() {
+            @Override
+            public boolean next(CellSink sink) {
+                if (!values.hasNext()) {
+                    return false;
+                }
+
+                writeRow(values.next(), sink);
+                return true;
+            }
+
+            @Override
+            public void close() {
+                onClose.run();
+            }
+        };
+    }
+
+    private static List<Property> recordProperties(Class<?> type) {
+        List<Property> properties = new ArrayList<>();
+        for (RecordComponent component : type.getRecordComponents()) {
+            ExcelColumn annotation = component.getAnnotation(ExcelColumn.class);
+            if (annotation != null) {
+                properties.add(new Property(component.getName(), component.getAccessor(), component.getType(), annotation));
+            }
+        }
+
+        return properties;
+    }
+
+    private static List<Property> beanProperties(Class<?> type) {
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.push(current);
+        }
+
+        List<Property> properties = new ArrayList<>();
+        for (Class<?> declaringClass : hierarchy) {
+            for (Field field : declaringClass.getDeclaredFields()) {
+                ExcelColumn annotation = field.getAnnotation(ExcelColumn.class);
+                if (annotation == null || Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+
+                Method getter = publicGetter(type, field);
+                Member member = getter == null ? field : getter;
+                properties.add(new Property(field.getName(), member, field.getType(), annotation));
+            }
+
+            for (Method method : declaringClass.getDeclaredMethods()) {
+                ExcelColumn annotation = method.getAnnotation(ExcelColumn.class);
+                if (annotation == null) {
+                    continue;
+                }
+
+                if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+                    throw new IllegalArgumentException("@ExcelColumn method " + method + " must be an instance method without parameters that returns a value.");
+                }
+
+                properties.add(new Property(propertyName(method.getName()), method, method.getReturnType(), annotation));
+            }
+        }
+
+        return properties;
+    }
+
+    private static Method publicGetter(Class<?> type, Field field) {
+        String suffix = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        for (String prefix : field.getType() == boolean.class ? new String[]{"is", "get"} : new String[]{"get"}) {
+            try {
+                Method method = type.getMethod(prefix + suffix);
+                if (method.getReturnType() == field.getType() && !Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // fall through to the next prefix or the field itself
+            }
+        }
+
+        return null;
+    }
+
+    private static String propertyName(String methodName) {
+        for (String prefix : new String[]{"get", "is"}) {
+            if (methodName.length() > prefix.length() && methodName.startsWith(prefix)
+                    && Character.isUpperCase(methodName.charAt(prefix.length()))) {
+                return Character.toLowerCase(methodName.charAt(prefix.length())) + methodName.substring(prefix.length() + 1);
+            }
+        }
+
+        return methodName;
+    }
+
+    private static Column column(Member member, Class<?> valueType) {
+        MethodHandle getter = Accessors.unreflect(member);
+        if (valueType == long.class || valueType == int.class || valueType == short.class || valueType == byte.class) {
+            ToLongFunction<Object> accessor = Accessors.longGetter(getter);
+            return (bean, sink) -> sink.number(accessor.applyAsLong(bean));
+        }
+        if (valueType == double.class || valueType == float.class) {
+            ToDoubleFunction<Object> accessor = Accessors.doubleGetter(getter);
+            return (bean, sink) -> sink.number(accessor.applyAsDouble(bean));
+        }
+        if (valueType == boolean.class) {
+            Predicate<Object> accessor = Accessors.booleanGetter(getter);
+            return (bean, sink) -> sink.bool(accessor.test(bean));
+        }
+
+        Function<Object, Object> accessor = Accessors.objectGetter(getter);
+        if (valueType == String.class) {
+            return (bean, sink) -> sink.text((String) accessor.apply(bean));
+        }
+        if (valueType == LocalDate.class) {
+            return (bean, sink) -> sink.date((LocalDate) accessor.apply(bean));
+        }
+        if (valueType == LocalDateTime.class) {
+            return (bean, sink) -> sink.dateTime((LocalDateTime) accessor.apply(bean));
+        }
+
+        return (bean, sink) -> writeValue(accessor.apply(bean), sink);
+    }
+
+    private static void writeValue(Object value, CellSink sink) {
+        if (value == null) {
+            sink.blank();
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            sink.number(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            sink.number(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            sink.bool((Boolean) value);
+        } else if (value instanceof LocalDate) {
+            sink.date((LocalDate) value);
+        } else if (value instanceof LocalDateTime) {
+            sink.dateTime((LocalDateTime) value);
+        } else if (value instanceof Enum) {
+            sink.text(((Enum<?>) value).name());
+        } else {
+            sink.text(value.toString());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Column {
+        void write(Object bean, CellSink sink);
+    }
+
+    private static final class Property {
+        private final String name;
+        private final Member member;
+        private final Class<?> valueType;
+        private final ExcelColumn annotation;
+
+        private Property(String name, Member member, Class<?> valueType, ExcelColumn annotation) {
+            this.name = name;
+            this.member = member;
+            this.valueType = valueType;
+            this.annotation = annotation;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.shings.excelmaker.metrics;
+
+import java.time.Duration;
+
+public final class GenerationEvent {
+    private final GenerationPhase phase;
+    private final String fileName;
+    private final String sheetName;
+    private final long rows;
+    private final long cells;
+    private final long bytes;
+    private final long durationNanos;
+
+    /**
+     * @param sheetName the sheet the event is about, or {@code null} for events about the whole file
+     * @param bytes     bytes produced by the phase, or 0 when the phase does not write measurable output
+     */
+    public GenerationEvent(GenerationPhase phase, String fileName, String sheetName, long rows, long cells, long bytes, long durationNanos) {
+        this.phase = phase;
+        this.fileName = fileName;
+        this.sheetName = sheetName;
+        this.rows = rows;
+        this.cells = cells;
+        this.bytes = bytes;
+        this.durationNanos = durationNanos;
+    }
+
+    public GenerationPhase getPhase() {
+        return phase;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getCells() {
+        return cells;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public Duration getDuration() {
+        return Duration.ofNanos(durationNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "GenerationEvent{" +
+                "phase=" + phase +
+                ", fileName='" + fileName + '\'' +
+                ", sheetName='" + sheetName + '\'' +
+                ", rows=" + rows +
+                ", cells=" + cells +
+                ", bytes=" + bytes +
+                ", durationNanos=" + durationNanos +
+                '}';
+    }
+}
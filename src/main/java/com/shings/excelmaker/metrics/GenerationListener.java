@@ -0,0 +1,12 @@
+package com.shings.excelmaker.metrics;
+
+/**
+ * Receives timing events while a maker generates output.
+ * Events are delivered on the thread that generates the output, including for sheets rendered in parallel,
+ * whose events are reported in sheet order once each sheet is done. The {@link GenerationPhase#OUTPUT} event comes last.
+ * Listeners should return quickly; an exception thrown by a listener fails the export.
+ */
+@FunctionalInterface
+public interface GenerationListener {
+    void onEvent(GenerationEvent event);
+}
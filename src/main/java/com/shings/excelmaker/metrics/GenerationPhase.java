@@ -0,0 +1,34 @@
+package com.shings.excelmaker.metrics;
+
+/**
+ * Steps of an export reported to a {@link GenerationListener}.
+ */
+public enum GenerationPhase {
+    /**
+     * Building the maker: copying the rows and sheets handed to the builder.
+     */
+    BUILD,
+    /**
+     * Rendering the rows of one CSV file or one XLSX sheet.
+     */
+    RENDER,
+    /**
+     * Spilling the rows an XLSX sheet still holds in memory to its SXSSF temp file once the sheet is rendered
+     * ({@code POI} engine).
+     */
+    FLUSH,
+    /**
+     * Writing the XLSX package; {@code bytes} is the package size. With the {@code NATIVE} engine, sheets are rendered
+     * while the package is written, so this phase includes their {@link #RENDER} events. Not reported for
+     * password-protected workbooks, whose package is written through the encryptor.
+     */
+    PACKAGE,
+    /**
+     * Packaging and encrypting a password-protected workbook; {@code bytes} is the size of the encrypted file.
+     */
+    ENCRYPTION,
+    /**
+     * The whole output call ({@code toBytes}, {@code toPath}, ...), with the totals of the export.
+     */
+    OUTPUT
+}
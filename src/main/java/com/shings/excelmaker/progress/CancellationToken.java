@@ -0,0 +1,19 @@
+package com.shings.excelmaker.progress;
+
+/**
+ * Cooperative cancellation of a running export. Makers check the token every few thousand rows; once it is
+ * cancelled, the output call fails with the maker's exception, caused by a
+ * {@link java.util.concurrent.CancellationException}, and temp files and partially written files are deleted.
+ * A token stays cancelled and may be shared by several exports.
+ */
+public final class CancellationToken {
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,45 @@
+package com.shings.excelmaker.progress;
+
+public final class ExportProgress {
+    private final String fileName;
+    private final long rowsCompleted;
+    private final int sheetsCompleted;
+    private final long bytesWritten;
+
+    public ExportProgress(String fileName, long rowsCompleted, int sheetsCompleted, long bytesWritten) {
+        this.fileName = fileName;
+        this.rowsCompleted = rowsCompleted;
+        this.sheetsCompleted = sheetsCompleted;
+        this.bytesWritten = bytesWritten;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getRowsCompleted() {
+        return rowsCompleted;
+    }
+
+    public int getSheetsCompleted() {
+        return sheetsCompleted;
+    }
+
+    /**
+     * Bytes written to the target so far. The {@code POI} engine writes the whole workbook after the last sheet,
+     * so its count stays at 0 until the final report.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportProgress{" +
+                "fileName='" + fileName + '\'' +
+                ", rowsCompleted=" + rowsCompleted +
+                ", sheetsCompleted=" + sheetsCompleted +
+                ", bytesWritten=" + bytesWritten +
+                '}';
+    }
+}
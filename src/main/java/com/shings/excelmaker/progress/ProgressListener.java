@@ -0,0 +1,11 @@
+package com.shings.excelmaker.progress;
+
+/**
+ * Receives progress while a maker generates output: every {@code progressInterval} rows, after each XLSX sheet,
+ * and once more when the output is complete. With parallel sheets, reports may come from the rendering threads,
+ * but never at the same time.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    void onProgress(ExportProgress progress);
+}
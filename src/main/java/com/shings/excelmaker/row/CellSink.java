@@ -0,0 +1,24 @@
+package com.shings.excelmaker.row;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Receives the cells of one row, left to right.
+ * Each call fills the next column; {@link #blank()} skips a column without writing a cell.
+ */
+public interface CellSink {
+    void text(String value);
+
+    void number(long value);
+
+    void number(double value);
+
+    void bool(boolean value);
+
+    void date(LocalDate value);
+
+    void dateTime(LocalDateTime value);
+
+    void blank();
+}
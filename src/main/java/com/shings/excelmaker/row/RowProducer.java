@@ -0,0 +1,22 @@
+package com.shings.excelmaker.row;
+
+/**
+ * Pull-based source of typed rows.
+ * Each call to {@link #next(CellSink)} writes one row into the sink, so values go straight from the caller's
+ * objects to the output without an intermediate {@code List<String>} per row.
+ */
+@FunctionalInterface
+public interface RowProducer extends AutoCloseable {
+    /**
+     * Writes the next row into {@code sink}.
+     * Writing no cells and returning {@code true} produces an empty row.
+     *
+     * @param sink receiver of the row's cells.
+     * @return {@code false} when there are no more rows; nothing may be written in that case.
+     */
+    boolean next(CellSink sink);
+
+    @Override
+    default void close() {
+    }
+}
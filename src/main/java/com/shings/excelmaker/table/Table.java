@@ -0,0 +1,207 @@
+package com.shings.excelmaker.table;
+
+import com.shings.excelmaker.row.CellSink;
+import com.shings.excelmaker.row.RowProducer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable column-oriented table.
+ * Numeric and boolean columns are stored as primitive arrays and string columns are dictionary-encoded,
+ * so a table costs a few bytes per cell instead of one {@code String} and one list slot per cell.
+ */
+public final class Table {
+    private final List<String> columnNames;
+    private final ColumnType[] columnTypes;
+    private final Object[] columns;
+    private final String[][] dictionaries;
+    private final int rowCount;
+
+    private Table(Builder builder) {
+        this.columnNames = List.copyOf(builder.columnNames);
+        this.columnTypes = builder.columnTypes.toArray(new ColumnType[0]);
+        this.columns = builder.columns.toArray();
+        this.dictionaries = builder.dictionaries.toArray(new String[0][]);
+        this.rowCount = builder.rowCount < 0 ? 0 : builder.rowCount;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnTypes.length;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public ColumnType getColumnType(int columnIndex) {
+        return columnTypes[columnIndex];
+    }
+
+    /**
+     * Returns a new cursor over all rows. Unlike row sources, a table can be read any number of times.
+     */
+    public RowProducer rows() {
+        return new RowProducer() {
+            private int rowIndex;
+
+            @Override
+            public boolean next(CellSink sink) {
+                if (rowIndex >= rowCount) {
+                    return false;
+                }
+
+                writeRow(rowIndex++, sink);
+                return true;
+            }
+        };
+    }
+
+    public void writeRow(int rowIndex, CellSink sink) {
+        for (int c = 0; c < columnTypes.length; c++) {
+            switch (columnTypes[c]) {
+                case INT:
+                    sink.number(((int[]) columns[c])[rowIndex]);
+                    break;
+                case LONG:
+                    sink.number(((long[]) columns[c])[rowIndex]);
+                    break;
+                case DOUBLE:
+                    sink.number(((double[]) columns[c])[rowIndex]);
+                    break;
+                case BOOLEAN:
+                    sink.bool(((boolean[]) columns[c])[rowIndex]);
+                    break;
+                case STRING:
+                    int code = ((int[]) columns[c])[rowIndex];
+                    if (code < 0) {
+                        sink.blank();
+                    } else {
+                        sink.text(dictionaries[c][code]);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown column type: " + columnTypes[c]);
+            }
+        }
+    }
+
+    public enum ColumnType {
+        INT,
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        STRING
+    }
+
+    public static final class Builder {
+        private final List<String> columnNames = new ArrayList<>();
+        private final List<ColumnType> columnTypes = new ArrayList<>();
+        private final List<Object> columns = new ArrayList<>();
+        private final List<String[]> dictionaries = new ArrayList<>();
+        private int rowCount = -1;
+
+        public Builder intColumn(String name, int[] values) {
+            requireValues(values);
+            return addColumn(name, ColumnType.INT, values.clone(), values.length, null);
+        }
+
+        public Builder longColumn(String name, long[] values) {
+            requireValues(values);
+            return addColumn(name, ColumnType.LONG, values.clone(), values.length, null);
+        }
+
+        public Builder doubleColumn(String name, double[] values) {
+            requireValues(values);
+            return addColumn(name, ColumnType.DOUBLE, values.clone(), values.length, null);
+        }
+
+        public Builder booleanColumn(String name, boolean[] values) {
+            requireValues(values);
+            return addColumn(name, ColumnType.BOOLEAN, values.clone(), values.length, null);
+        }
+
+        /**
+         * Adds a string column, dictionary-encoding the values. {@code null} values become blank cells.
+         */
+        public Builder stringColumn(String name, List<String> values) {
+            requireValues(values);
+
+            Map<String, Integer> codesByValue = new HashMap<>();
+            List<String> dictionary = new ArrayList<>();
+            int[] codes = new int[values.size()];
+            for (int i = 0; i < codes.length; i++) {
+                String value = values.get(i);
+                if (value == null) {
+                    codes[i] = -1;
+                    continue;
+                }
+
+                Integer code = codesByValue.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    codesByValue.put(value, code);
+                    dictionary.add(value);
+                }
+                codes[i] = code;
+            }
+
+            return addColumn(name, ColumnType.STRING, codes, codes.length, dictionary.toArray(new String[0]));
+        }
+
+        /**
+         * Adds an already dictionary-encoded string column. A negative code is a blank cell.
+         */
+        public Builder stringColumn(String name, int[] codes, List<String> dictionary) {
+            requireValues(codes);
+            requireValues(dictionary);
+
+            String[] values = dictionary.toArray(new String[0]);
+            for (int code : codes) {
+                if (code >= values.length) {
+                    throw new IllegalArgumentException("Dictionary code " + code + " of column '" + name + "' is out of range (dictionary size " + values.length + ").");
+                }
+            }
+
+            return addColumn(name, ColumnType.STRING, Arrays.copyOf(codes, codes.length), codes.length, values);
+        }
+
+        public Table build() {
+            return new Table(this);
+        }
+
+        private Builder addColumn(String name, ColumnType type, Object values, int length, String[] dictionary) {
+            if (name == null) {
+                throw new IllegalArgumentException("column name must not be null.");
+            }
+
+            if (rowCount >= 0 && rowCount != length) {
+                throw new IllegalArgumentException("Column '" + name + "' has " + length + " rows, but the table has " + rowCount + " rows.");
+            }
+
+            rowCount = length;
+            columnNames.add(name);
+            columnTypes.add(type);
+            columns.add(values);
+            dictionaries.add(dictionary);
+            return this;
+        }
+
+        private static void requireValues(Object values) {
+            if (values == null) {
+                throw new IllegalArgumentException("column values must not be null.");
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.shings.excelmaker.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class AsyncExecutors {
+    private static final long IDLE_SECONDS = 60;
+
+    private AsyncExecutors() {
+    }
+
+    public static Executor defaultExecutor() {
+        return Holder.EXECUTOR;
+    }
+
+    /**
+     * Executor for publishers, whose generating thread parks while the subscriber has no demand.
+     * Without virtual threads every publisher gets a thread of its own, so idle subscribers cannot occupy the
+     * bounded {@link #defaultExecutor()} and stall the async exports queued behind them.
+     */
+    public static Executor publisherExecutor() {
+        return Holder.PUBLISHER_EXECUTOR;
+    }
+
+    // The library targets Java 17, so virtual threads (Java 21+) are looked up reflectively.
+    private static Executor virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+
+        } catch (InvocationTargetException e) {
+            // Java 19/20 without --enable-preview rejects virtual threads.
+            return null;
+        }
+    }
+
+    // Platform threads are expensive, so the fallback is capped at the CPU count and further tasks wait in the queue
+    // instead of each starting a thread of its own. Idle threads exit, so the pool costs nothing when unused.
+    private static Executor platformExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreadFactory("excelmaker-async-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static Executor threadPerTaskExecutor() {
+        ThreadFactory threadFactory = daemonThreadFactory("excelmaker-publisher-");
+        return runnable -> threadFactory.newThread(runnable).start();
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Holder {
+        private static final Executor VIRTUAL_EXECUTOR = virtualThreadExecutor();
+        private static final Executor EXECUTOR = VIRTUAL_EXECUTOR != null ? VIRTUAL_EXECUTOR : platformExecutor();
+        private static final Executor PUBLISHER_EXECUTOR = VIRTUAL_EXECUTOR != null ? VIRTUAL_EXECUTOR : threadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,236 @@
+package com.shings.excelmaker.util;
+
+import com.shings.excelmaker.io.CompressionOptions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a raw deflate stream and tracks the CRC-32 and sizes needed by ZIP and GZIP containers.
+ * Without an executor, one {@link Deflater} compresses on the calling thread. With an executor, input is cut into
+ * blocks that are compressed concurrently, pigz-style: every block is primed with the last 32 KB of the previous
+ * block and ends on a byte boundary (sync flush), so the compressed blocks concatenate into one valid stream.
+ * Blocks are written in input order; at most twice the number of processors are buffered at once.
+ */
+public final class BlockDeflaterOutputStream extends OutputStream {
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int MAX_IN_FLIGHT_BLOCKS = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final OutputStream out;
+    private final int level;
+    private final Executor executor;
+    private final CRC32 crc = new CRC32();
+    private final Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+    private final Deflater deflater;
+    private final byte[] output;
+    private byte[] block;
+    private byte[] previousBlock;
+    private int count;
+    private long bytesRead;
+    private long bytesWritten;
+    private boolean finished;
+
+    public BlockDeflaterOutputStream(OutputStream out, CompressionOptions options) {
+        this.out = out;
+        this.level = options.getLevel();
+        this.executor = options.getExecutor();
+        this.block = new byte[options.getBlockSize()];
+        this.deflater = executor == null ? new Deflater(level, true) : null;
+        this.output = executor == null ? new byte[options.getBlockSize()] : null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == block.length) {
+            flushBlock(false);
+        }
+
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == block.length) {
+                flushBlock(false);
+            }
+
+            int chunk = Math.min(length, block.length - count);
+            System.arraycopy(bytes, offset, block, count, chunk);
+            count += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Completes the deflate stream without closing the target stream.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+
+        flushBlock(true);
+        while (!inFlight.isEmpty()) {
+            writeCompressed(await(inFlight.poll()));
+        }
+
+        if (deflater != null) {
+            deflater.end();
+        }
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            abort();
+            out.close();
+        }
+    }
+
+    /**
+     * Drops blocks still being compressed, for callers that give up on the stream after a failure.
+     */
+    public void abort() {
+        for (Future<byte[]> pending : inFlight) {
+            pending.cancel(false);
+        }
+        inFlight.clear();
+
+        if (deflater != null) {
+            deflater.end();
+        }
+    }
+
+    public long getCrc() {
+        return crc.getValue();
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private void flushBlock(boolean last) throws IOException {
+        crc.update(block, 0, count);
+        bytesRead += count;
+
+        if (executor == null) {
+            deflateInline(last);
+            count = 0;
+            return;
+        }
+
+        if (inFlight.size() >= MAX_IN_FLIGHT_BLOCKS) {
+            writeCompressed(await(inFlight.poll()));
+        }
+
+        byte[] input = block;
+        int length = count;
+        byte[] dictionary = previousBlock;
+        FutureTask<byte[]> task = new FutureTask<>(() -> deflateBlock(level, input, length, dictionary, last));
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Failed to schedule compression of a block.", e);
+        }
+        inFlight.add(task);
+
+        // The submitted block is owned by its task until the next block, which reads it as a dictionary, completes.
+        previousBlock = input;
+        block = new byte[block.length];
+        count = 0;
+    }
+
+    private void deflateInline(boolean last) throws IOException {
+        deflater.setInput(block, 0, count);
+        if (last) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                writeOutput(deflater.deflate(output));
+            }
+            return;
+        }
+
+        while (!deflater.needsInput()) {
+            writeOutput(deflater.deflate(output));
+        }
+    }
+
+    private void writeOutput(int length) throws IOException {
+        out.write(output, 0, length);
+        bytesWritten += length;
+    }
+
+    private void writeCompressed(byte[] compressed) throws IOException {
+        out.write(compressed);
+        bytesWritten += compressed.length;
+    }
+
+    private static byte[] deflateBlock(int level, byte[] input, int length, byte[] dictionary, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+            deflater.setInput(input, 0, length);
+            if (last) {
+                deflater.finish();
+            }
+
+            byte[] compressed = new byte[length + (length >> 8) + 64];
+            int size = 0;
+            while (true) {
+                if (size == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+
+                size += deflater.deflate(compressed, size, compressed.length - size, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                if (last ? deflater.finished() : size < compressed.length) {
+                    return Arrays.copyOf(compressed, size);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] await(Future<byte[]> pending) throws IOException {
+        try {
+            return pending.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a block to be compressed.");
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException("Failed to compress a block.", cause);
+        }
+    }
+}
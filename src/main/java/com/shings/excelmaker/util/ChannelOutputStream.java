@@ -0,0 +1,112 @@
+package com.shings.excelmaker.util;
+
+import com.shings.excelmaker.io.FileForcePolicy;
+import com.shings.excelmaker.io.FileOutputOptions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class ChannelOutputStream extends OutputStream {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final FileOutputOptions options;
+    private long written;
+    private boolean closed;
+
+    private ChannelOutputStream(FileChannel channel, FileOutputOptions options) {
+        this.channel = channel;
+        this.options = options;
+        // FileChannel copies heap buffers through its own cached direct buffer, so a per-stream direct buffer buys nothing.
+        this.buffer = ByteBuffer.allocate(options.getBufferSize());
+    }
+
+    public static ChannelOutputStream open(Path path, FileOutputOptions options) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            if (options.getPreallocateBytes() > 0) {
+                channel.write(ByteBuffer.allocate(1), options.getPreallocateBytes() - 1);
+            }
+
+            return new ChannelOutputStream(channel, options);
+
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length >= buffer.capacity()) {
+            // Staging a large array would only copy it once more, so it goes to the channel directly. The slices are
+            // capped at the buffer size because the channel copies each one through a cached direct buffer of that size.
+            drain();
+            int end = offset + length;
+            for (int sliceStart = offset; sliceStart < end; sliceStart += buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes, sliceStart, Math.min(end - sliceStart, buffer.capacity())));
+            }
+            return;
+        }
+
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        try (FileChannel ignored = channel) {
+            drain();
+            if (channel.size() > written) {
+                channel.truncate(written);
+            }
+
+            FileForcePolicy forcePolicy = options.getForcePolicy();
+            if (forcePolicy != FileForcePolicy.NONE) {
+                channel.force(forcePolicy == FileForcePolicy.CONTENT_AND_METADATA);
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            written += channel.write(source, written);
+        }
+    }
+}
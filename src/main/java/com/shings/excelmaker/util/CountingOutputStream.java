@@ -0,0 +1,39 @@
+package com.shings.excelmaker.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public final class CountingOutputStream extends OutputStream {
+    private final OutputStream out;
+    private long count;
+
+    public CountingOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+        count += length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
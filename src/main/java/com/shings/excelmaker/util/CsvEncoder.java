@@ -0,0 +1,257 @@
+package com.shings.excelmaker.util;
+
+import com.shings.excelmaker.row.CellSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Encodes cells straight into a reusable UTF-8 byte buffer.
+ * Each text cell is scanned once: it is written unquoted, and only when a delimiter, quote or line break shows up
+ * are the bytes written so far shifted by one to make room for the opening quote.
+ */
+public final class CsvEncoder implements CellSink {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final char delimiter;
+    private final byte[] delimiterBytes;
+    private final byte[] lineSeparatorBytes;
+    private byte[] buffer;
+    private int position;
+    private boolean firstCell = true;
+    private long rowCount;
+    private long cellCount;
+    private long bytesFlushed;
+
+    private CsvEncoder(OutputStream out, char delimiter, String lineSeparator, int bufferSize) {
+        this.out = out;
+        this.delimiter = delimiter;
+        this.delimiterBytes = String.valueOf(delimiter).getBytes(StandardCharsets.UTF_8);
+        this.lineSeparatorBytes = lineSeparator.getBytes(StandardCharsets.UTF_8);
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+    }
+
+    public static CsvEncoder to(OutputStream out, char delimiter, String lineSeparator) {
+        return new CsvEncoder(out, delimiter, lineSeparator, DEFAULT_BUFFER_SIZE);
+    }
+
+    public static CsvEncoder inMemory(char delimiter, String lineSeparator, int initialCapacity) {
+        return new CsvEncoder(null, delimiter, lineSeparator, initialCapacity);
+    }
+
+    @Override
+    public void text(String value) {
+        if (value == null) {
+            blank();
+            return;
+        }
+
+        int length = value.length();
+        startCell(3 * length + 2);
+
+        byte[] buf = buffer;
+        int start = position;
+        int pos = start;
+        boolean quoted = false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                    if (!quoted) {
+                        System.arraycopy(buf, start, buf, start + 1, pos - start);
+                        buf[start] = '"';
+                        pos++;
+                        quoted = true;
+                    }
+                    if (c == '"') {
+                        buf[pos++] = '"';
+                    }
+                }
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                if (c == delimiter && !quoted) {
+                    System.arraycopy(buf, start, buf, start + 1, pos - start);
+                    buf[start] = '"';
+                    pos++;
+                    quoted = true;
+                }
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    // Same replacement as OutputStreamWriter for an unpaired surrogate.
+                    buf[pos++] = '?';
+                }
+            } else {
+                if (c == delimiter && !quoted) {
+                    System.arraycopy(buf, start, buf, start + 1, pos - start);
+                    buf[start] = '"';
+                    pos++;
+                    quoted = true;
+                }
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        if (quoted) {
+            buf[pos++] = '"';
+        }
+        position = pos;
+    }
+
+    @Override
+    public void number(long value) {
+        startCell(20);
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    @Override
+    public void number(double value) {
+        String text = Double.toString(value);
+        startCell(text.length());
+        writeAscii(text);
+    }
+
+    @Override
+    public void bool(boolean value) {
+        startCell(5);
+        writeAscii(value ? "true" : "false");
+    }
+
+    @Override
+    public void date(LocalDate value) {
+        if (value == null) {
+            blank();
+            return;
+        }
+
+        String text = value.toString();
+        startCell(text.length());
+        writeAscii(text);
+    }
+
+    @Override
+    public void dateTime(LocalDateTime value) {
+        if (value == null) {
+            blank();
+            return;
+        }
+
+        String text = value.toString();
+        startCell(text.length());
+        writeAscii(text);
+    }
+
+    @Override
+    public void blank() {
+        startCell(0);
+    }
+
+    public void endRow() {
+        ensureCapacity(lineSeparatorBytes.length);
+        System.arraycopy(lineSeparatorBytes, 0, buffer, position, lineSeparatorBytes.length);
+        position += lineSeparatorBytes.length;
+        firstCell = true;
+        rowCount++;
+    }
+
+    public void flush() throws IOException {
+        if (out == null) {
+            return;
+        }
+
+        flushBuffer();
+        out.flush();
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getCellCount() {
+        return cellCount;
+    }
+
+    public long getBytesWritten() {
+        return bytesFlushed + position;
+    }
+
+    // The delimiter and the whole cell are reserved at once, so a cell never straddles a flush.
+    private void startCell(int maxCellBytes) {
+        ensureCapacity(delimiterBytes.length + maxCellBytes);
+        if (!firstCell) {
+            System.arraycopy(delimiterBytes, 0, buffer, position, delimiterBytes.length);
+            position += delimiterBytes.length;
+        }
+        firstCell = false;
+        cellCount++;
+    }
+
+    private void writeAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer[position++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.length - position >= bytes) {
+            return;
+        }
+
+        if (out != null && position > 0) {
+            try {
+                flushBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        if (buffer.length - position < bytes) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        bytesFlushed += position;
+        position = 0;
+    }
+}
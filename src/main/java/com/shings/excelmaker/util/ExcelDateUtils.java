@@ -0,0 +1,37 @@
+package com.shings.excelmaker.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public final class ExcelDateUtils {
+    public static final int BUILTIN_DATE_FORMAT = 14;
+    public static final int BUILTIN_DATE_TIME_FORMAT = 22;
+
+    private static final long EPOCH_DAY_1900_01_01 = LocalDate.of(1900, 1, 1).toEpochDay();
+    private static final long EPOCH_DAY_1900_03_01 = LocalDate.of(1900, 3, 1).toEpochDay();
+    private static final double SECONDS_PER_DAY = 86_400.0;
+
+    private ExcelDateUtils() {
+    }
+
+    // Excel's 1900 date system counts the non-existent 1900-02-29, so serials from March 1900 on are shifted by one.
+    // Dates before 1900 are not representable and map to -1, as in Apache POI.
+    public static double toSerial(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        if (epochDay < EPOCH_DAY_1900_01_01) {
+            return -1;
+        }
+
+        long serial = epochDay - EPOCH_DAY_1900_01_01 + 1;
+        return epochDay >= EPOCH_DAY_1900_03_01 ? serial + 1 : serial;
+    }
+
+    public static double toSerial(LocalDateTime dateTime) {
+        double serial = toSerial(dateTime.toLocalDate());
+        if (serial < 0) {
+            return serial;
+        }
+
+        return serial + dateTime.toLocalTime().toNanoOfDay() / 1_000_000_000.0 / SECONDS_PER_DAY;
+    }
+}
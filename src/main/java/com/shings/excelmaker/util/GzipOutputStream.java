@@ -0,0 +1,70 @@
+package com.shings.excelmaker.util;
+
+import com.shings.excelmaker.io.CompressionOptions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * GZIP member (RFC 1952) around a {@link BlockDeflaterOutputStream}, so it supports the configured level and
+ * parallel compression. {@link #finish()} writes the trailer without closing the target stream.
+ */
+public final class GzipOutputStream extends OutputStream {
+    private static final int OS_UNKNOWN = 255;
+
+    private final OutputStream out;
+    private final BlockDeflaterOutputStream deflater;
+    private boolean finished;
+
+    public GzipOutputStream(OutputStream out, CompressionOptions options) throws IOException {
+        this.out = out;
+        this.deflater = new BlockDeflaterOutputStream(out, options);
+
+        int extraFlags = options.getLevel() == CompressionOptions.BEST_COMPRESSION ? 2
+                : options.getLevel() == CompressionOptions.BEST_SPEED ? 4 : 0;
+        out.write(new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, (byte) extraFlags, (byte) OS_UNKNOWN});
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        deflater.write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        deflater.write(bytes, offset, length);
+    }
+
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+
+        deflater.finish();
+        writeInt(deflater.getCrc());
+        writeInt(deflater.getBytesRead());
+        out.flush();
+        finished = true;
+    }
+
+    public void abort() {
+        deflater.abort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            abort();
+            out.close();
+        }
+    }
+
+    private void writeInt(long value) throws IOException {
+        out.write((int) value);
+        out.write((int) (value >>> 8));
+        out.write((int) (value >>> 16));
+        out.write((int) (value >>> 24));
+    }
+}
@@ -0,0 +1,36 @@
+package com.shings.excelmaker.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Forwards writes to a caller-owned stream but only flushes it on close, so wrappers that hold native
+ * resources (such as a {@link java.util.zip.ZipOutputStream}) can be closed without closing the target.
+ */
+public final class NonClosingOutputStream extends OutputStream {
+    private final OutputStream out;
+
+    public NonClosingOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
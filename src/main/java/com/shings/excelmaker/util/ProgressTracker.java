@@ -0,0 +1,160 @@
+package com.shings.excelmaker.util;
+
+import com.shings.excelmaker.progress.CancellationToken;
+import com.shings.excelmaker.progress.ExportProgress;
+import com.shings.excelmaker.progress.ProgressListener;
+
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Progress of one output call. Renderers count rows through a {@link RowCounter} each, which hands them over every
+ * {@link #CHECK_INTERVAL_ROWS} rows; that is also when the cancellation tokens are checked: the maker's own and the
+ * one of the output call, which a publisher cancels when its subscriber goes away.
+ */
+public final class ProgressTracker {
+    public static final int CHECK_INTERVAL_ROWS = 1024;
+    public static final long DEFAULT_REPORT_INTERVAL_ROWS = 10_000;
+
+    private static final ProgressTracker NONE = new ProgressTracker(null, null, null, null, Long.MAX_VALUE);
+
+    private final String fileName;
+    private final ProgressListener listener;
+    private final CancellationToken cancellationToken;
+    private final CancellationToken outputCancellation;
+    private final long reportIntervalRows;
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicInteger sheets = new AtomicInteger();
+    // Sheets rendered in parallel report from their own threads; the lock keeps reports from overlapping.
+    private final ReentrantLock reportLock = new ReentrantLock();
+    private long nextReportRows;
+    private volatile CountingOutputStream output;
+
+    private ProgressTracker(String fileName,
+                            ProgressListener listener,
+                            CancellationToken cancellationToken,
+                            CancellationToken outputCancellation,
+                            long reportIntervalRows) {
+        this.fileName = fileName;
+        this.listener = listener;
+        this.cancellationToken = cancellationToken;
+        this.outputCancellation = outputCancellation;
+        this.reportIntervalRows = reportIntervalRows;
+        this.nextReportRows = reportIntervalRows;
+    }
+
+    /**
+     * Returns a tracker that neither reports nor cancels when {@code listener} and both tokens are {@code null}.
+     */
+    public static ProgressTracker of(String fileName,
+                                     ProgressListener listener,
+                                     CancellationToken cancellationToken,
+                                     CancellationToken outputCancellation,
+                                     long reportIntervalRows) {
+        if (listener == null && cancellationToken == null && outputCancellation == null) {
+            return NONE;
+        }
+
+        return new ProgressTracker(fileName, listener, cancellationToken, outputCancellation, reportIntervalRows);
+    }
+
+    public static ProgressTracker none() {
+        return NONE;
+    }
+
+    /**
+     * Counts the bytes written to {@code out} when a listener wants them.
+     */
+    public OutputStream count(OutputStream out) {
+        if (listener == null) {
+            return out;
+        }
+
+        CountingOutputStream counted = new CountingOutputStream(out);
+        output = counted;
+        return counted;
+    }
+
+    public RowCounter rowCounter() {
+        return new RowCounter();
+    }
+
+    public void checkCancelled() {
+        if ((cancellationToken != null && cancellationToken.isCancelled())
+                || (outputCancellation != null && outputCancellation.isCancelled())) {
+            throw new CancellationException("Export of " + fileName + " was cancelled.");
+        }
+    }
+
+    public void addRows(long count) {
+        checkCancelled();
+        if (listener == null || count == 0) {
+            return;
+        }
+
+        long total = rows.addAndGet(count);
+        if (total >= nextReportRows) {
+            report(false);
+        }
+    }
+
+    public void sheetCompleted() {
+        checkCancelled();
+        if (listener == null) {
+            return;
+        }
+
+        sheets.incrementAndGet();
+        report(true);
+    }
+
+    /**
+     * Reports the final totals once the output is complete.
+     */
+    public void finish() {
+        if (listener != null) {
+            report(true);
+        }
+    }
+
+    private void report(boolean always) {
+        reportLock.lock();
+        try {
+            long total = rows.get();
+            if (!always && total < nextReportRows) {
+                return;
+            }
+
+            nextReportRows = (total / reportIntervalRows + 1) * reportIntervalRows;
+            CountingOutputStream counted = output;
+            listener.onProgress(new ExportProgress(fileName, total, sheets.get(), counted == null ? 0 : counted.getCount()));
+        } finally {
+            reportLock.unlock();
+        }
+    }
+
+    /**
+     * Row count of one renderer; not thread-safe.
+     */
+    public final class RowCounter {
+        private int pendingRows;
+
+        private RowCounter() {
+        }
+
+        public void row() {
+            if (++pendingRows == CHECK_INTERVAL_ROWS) {
+                flush();
+            }
+        }
+
+        public void flush() {
+            int count = pendingRows;
+            pendingRows = 0;
+            addRows(count);
+        }
+    }
+}
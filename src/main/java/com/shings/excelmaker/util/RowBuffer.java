@@ -0,0 +1,159 @@
+package com.shings.excelmaker.util;
+
+import com.shings.excelmaker.row.CellSink;
+import com.shings.excelmaker.row.RowProducer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+public final class RowBuffer implements CellSink {
+    private static final byte TEXT = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte DATE = 4;
+    private static final byte DATE_TIME = 5;
+    private static final byte BLANK = 6;
+
+    private byte[] types;
+    private long[] primitives;
+    private Object[] objects;
+    private int[] rowEnds;
+    private int cellCount;
+    private int rowCount;
+
+    public RowBuffer(int expectedRows) {
+        int rows = Math.max(expectedRows, 1);
+        this.types = new byte[rows * 4];
+        this.primitives = new long[rows * 4];
+        this.objects = new Object[rows * 4];
+        this.rowEnds = new int[rows];
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public void endRow() {
+        if (rowCount == rowEnds.length) {
+            rowEnds = Arrays.copyOf(rowEnds, rowEnds.length * 2);
+        }
+
+        rowEnds[rowCount++] = cellCount;
+    }
+
+    public RowProducer rows() {
+        return new RowProducer() {
+            private int row;
+            private int cell;
+
+            @Override
+            public boolean next(CellSink sink) {
+                if (row >= rowCount) {
+                    return false;
+                }
+
+                int end = rowEnds[row++];
+                for (; cell < end; cell++) {
+                    replay(cell, sink);
+                }
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public void text(String value) {
+        if (value == null) {
+            blank();
+            return;
+        }
+
+        add(TEXT, 0L, value);
+    }
+
+    @Override
+    public void number(long value) {
+        add(LONG, value, null);
+    }
+
+    @Override
+    public void number(double value) {
+        add(DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    @Override
+    public void bool(boolean value) {
+        add(BOOLEAN, value ? 1L : 0L, null);
+    }
+
+    @Override
+    public void date(LocalDate value) {
+        if (value == null) {
+            blank();
+            return;
+        }
+
+        add(DATE, 0L, value);
+    }
+
+    @Override
+    public void dateTime(LocalDateTime value) {
+        if (value == null) {
+            blank();
+            return;
+        }
+
+        add(DATE_TIME, 0L, value);
+    }
+
+    @Override
+    public void blank() {
+        add(BLANK, 0L, null);
+    }
+
+    private void add(byte type, long primitive, Object object) {
+        if (cellCount == types.length) {
+            int capacity = types.length * 2;
+            types = Arrays.copyOf(types, capacity);
+            primitives = Arrays.copyOf(primitives, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+
+        types[cellCount] = type;
+        primitives[cellCount] = primitive;
+        objects[cellCount] = object;
+        cellCount++;
+    }
+
+    private void replay(int cell, CellSink sink) {
+        switch (types[cell]) {
+            case TEXT:
+                sink.text((String) objects[cell]);
+                break;
+            case LONG:
+                sink.number(primitives[cell]);
+                break;
+            case DOUBLE:
+                sink.number(Double.longBitsToDouble(primitives[cell]));
+                break;
+            case BOOLEAN:
+                sink.bool(primitives[cell] != 0L);
+                break;
+            case DATE:
+                sink.date((LocalDate) objects[cell]);
+                break;
+            case DATE_TIME:
+                sink.dateTime((LocalDateTime) objects[cell]);
+                break;
+            default:
+                sink.blank();
+                break;
+        }
+    }
+}
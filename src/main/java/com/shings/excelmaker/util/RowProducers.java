@@ -0,0 +1,112 @@
+package com.shings.excelmaker.util;
+
+import com.shings.excelmaker.row.CellSink;
+import com.shings.excelmaker.row.RowProducer;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+public final class RowProducers {
+    private RowProducers() {
+    }
+
+    public static RowProducer ofTextRows(Iterator<? extends List<String>> rows, Runnable onClose) {
+        return new RowProducer() {
+            @Override
+            public boolean next(CellSink sink) {
+                // Null rows are skipped, as they are for rows added through the builders.
+                while (rows.hasNext()) {
+                    List<String> row = rows.next();
+                    if (row != null) {
+                        writeTextRow(row, sink);
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+
+            @Override
+            public void close() {
+                onClose.run();
+            }
+        };
+    }
+
+    /**
+     * Rethrows the {@link IllegalArgumentException}s of {@code rows}, such as a null mapped object, as the exception
+     * type of the maker that reads them.
+     */
+    public static RowProducer translateIllegalArguments(RowProducer rows,
+                                                        Function<IllegalArgumentException, RuntimeException> translator) {
+        return new RowProducer() {
+            @Override
+            public boolean next(CellSink sink) {
+                try {
+                    return rows.next(sink);
+                } catch (IllegalArgumentException e) {
+                    throw translator.apply(e);
+                }
+            }
+
+            @Override
+            public void close() {
+                rows.close();
+            }
+        };
+    }
+
+    public static RowProducer concat(List<RowProducer> producers) {
+        return new RowProducer() {
+            private int current;
+
+            @Override
+            public boolean next(CellSink sink) {
+                while (current < producers.size()) {
+                    if (producers.get(current).next(sink)) {
+                        return true;
+                    }
+                    current++;
+                }
+
+                return false;
+            }
+
+            @Override
+            public void close() {
+                RuntimeException failure = null;
+                for (RowProducer producer : producers) {
+                    try {
+                        producer.close();
+                    } catch (RuntimeException e) {
+                        if (failure == null) {
+                            failure = e;
+                        } else {
+                            failure.addSuppressed(e);
+                        }
+                    }
+                }
+
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        };
+    }
+
+    public static void writeTextRow(List<String> row, CellSink sink) {
+        if (row == null) {
+            return;
+        }
+
+        for (int i = 0; i < row.size(); i++) {
+            String value = row.get(i);
+            if (value == null) {
+                sink.blank();
+            } else {
+                sink.text(value);
+            }
+        }
+    }
+}
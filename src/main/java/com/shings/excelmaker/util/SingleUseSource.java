@@ -0,0 +1,43 @@
+package com.shings.excelmaker.util;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+public final class SingleUseSource<T> {
+    private final AtomicReference<Iterator<? extends T>> iterator;
+    private final Runnable onClose;
+
+    private SingleUseSource(Iterator<? extends T> iterator, Runnable onClose) {
+        this.iterator = new AtomicReference<>(iterator);
+        this.onClose = onClose;
+    }
+
+    public static <T> SingleUseSource<T> of(Iterator<? extends T> iterator) {
+        return new SingleUseSource<>(iterator, () -> {
+        });
+    }
+
+    public static <T> SingleUseSource<T> of(Spliterator<? extends T> spliterator) {
+        return new SingleUseSource<>(Spliterators.iterator(spliterator), () -> {
+        });
+    }
+
+    public static <T> SingleUseSource<T> of(Stream<? extends T> stream) {
+        return new SingleUseSource<>(stream.iterator(), stream::close);
+    }
+
+    public Iterator<? extends T> take() {
+        return iterator.getAndSet(null);
+    }
+
+    public boolean isConsumed() {
+        return iterator.get() == null;
+    }
+
+    public void close() {
+        onClose.run();
+    }
+}
@@ -0,0 +1,15 @@
+package com.shings.excelmaker.xlsx;
+
+public enum XlsxEncryptionStaging {
+    /**
+     * Stages the encrypted package in a temp file and streams it into the output inside a compound file written
+     * around it. Heap use does not grow with the workbook size, and the package is not block-mapped.
+     */
+    TEMP_FILE,
+
+    /**
+     * Builds the encrypted container in an in-memory {@code POIFSFileSystem}. Needs heap proportional to the output,
+     * but avoids temp files for small workbooks.
+     */
+    MEMORY
+}
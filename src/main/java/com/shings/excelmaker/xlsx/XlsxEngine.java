@@ -0,0 +1,14 @@
+package com.shings.excelmaker.xlsx;
+
+public enum XlsxEngine {
+    /**
+     * Renders through Apache POI {@code SXSSFWorkbook}. Supports every feature, including password protection.
+     */
+    POI,
+
+    /**
+     * Writes the OOXML parts straight into the ZIP output in a single pass, without per-cell objects or temp files.
+     * Falls back to {@link #POI} for features it does not support (password protection).
+     */
+    NATIVE
+}
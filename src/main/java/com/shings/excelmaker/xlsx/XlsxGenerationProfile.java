@@ -0,0 +1,109 @@
+package com.shings.excelmaker.xlsx;
+
+import com.shings.excelmaker.exception.XlsxException;
+
+import java.nio.file.Path;
+
+/**
+ * Tunes the {@link XlsxEngine#POI} engine for a memory budget.
+ * The budget decides how many rows each sheet keeps in memory (the SXSSF row-access window), re-estimated
+ * while rows are written, and whether spilled rows are gzip-compressed on disk. Budgets below 64 MB compress
+ * temp files unless told otherwise. The {@link XlsxEngine#NATIVE} engine runs in constant memory and ignores it.
+ */
+public final class XlsxGenerationProfile {
+    private static final long COMPRESSION_THRESHOLD_BYTES = 64L * 1024 * 1024;
+
+    private final long memoryBudgetBytes;
+    private final boolean compressTempFiles;
+    private final boolean sharedStrings;
+    private final Path tempDirectory;
+
+    private XlsxGenerationProfile(Builder builder) {
+        this.memoryBudgetBytes = builder.memoryBudgetBytes;
+        this.compressTempFiles = builder.compressTempFiles == null
+                ? builder.memoryBudgetBytes < COMPRESSION_THRESHOLD_BYTES
+                : builder.compressTempFiles;
+        this.sharedStrings = builder.sharedStrings;
+        this.tempDirectory = builder.tempDirectory;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Large windows and uncompressed temp files for batch nodes with plenty of heap.
+     */
+    public static XlsxGenerationProfile throughput() {
+        return builder().memoryBudget(512L * 1024 * 1024).build();
+    }
+
+    /**
+     * Small windows and compressed temp files for memory-constrained containers.
+     */
+    public static XlsxGenerationProfile lowFootprint() {
+        return builder().memoryBudget(8L * 1024 * 1024).build();
+    }
+
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    public boolean isCompressTempFiles() {
+        return compressTempFiles;
+    }
+
+    public boolean isSharedStrings() {
+        return sharedStrings;
+    }
+
+    public Path getTempDirectory() {
+        return tempDirectory;
+    }
+
+    public static final class Builder {
+        private long memoryBudgetBytes = 32L * 1024 * 1024;
+        private Boolean compressTempFiles;
+        private boolean sharedStrings;
+        private Path tempDirectory;
+
+        private Builder() {
+        }
+
+        public Builder memoryBudget(long bytes) {
+            if (bytes <= 0) {
+                throw new XlsxException("memoryBudget must be greater than 0.");
+            }
+
+            this.memoryBudgetBytes = bytes;
+            return this;
+        }
+
+        public Builder compressTempFiles(boolean compressTempFiles) {
+            this.compressTempFiles = compressTempFiles;
+            return this;
+        }
+
+        /**
+         * Writes text through a workbook-wide shared-strings table. Smaller files for repetitive text,
+         * but the table stays in memory until the workbook is written.
+         */
+        public Builder sharedStrings(boolean sharedStrings) {
+            this.sharedStrings = sharedStrings;
+            return this;
+        }
+
+        public Builder tempDirectory(Path tempDirectory) {
+            if (tempDirectory == null) {
+                throw new XlsxException("tempDirectory must not be null.");
+            }
+
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        public XlsxGenerationProfile build() {
+            return new XlsxGenerationProfile(this);
+        }
+    }
+}
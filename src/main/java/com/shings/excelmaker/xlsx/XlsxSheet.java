@@ -1,16 +1,31 @@
 package com.shings.excelmaker.xlsx;
 
 import com.shings.excelmaker.exception.XlsxException;
+import com.shings.excelmaker.jdbc.ResultSetSource;
+import com.shings.excelmaker.mapping.RowMapper;
+import com.shings.excelmaker.row.RowProducer;
+import com.shings.excelmaker.table.Table;
 import com.shings.excelmaker.util.CollectionCopyUtils;
+import com.shings.excelmaker.util.RowProducers;
+import com.shings.excelmaker.util.SingleUseSource;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public final class XlsxSheet {
     private final String sheetName;
     private final List<XlsxSheetCell> headerCells;
     private final List<List<String>> rows;
+    private final SingleUseSource<List<String>> rowSource;
+    private final Table table;
+    private final Supplier<RowProducer> objects;
+    private final List<Supplier<RowProducer>> streamedRows;
 
     private XlsxSheet(Builder builder) {
         if (builder.rows == null) {
@@ -20,6 +35,10 @@ public final class XlsxSheet {
         this.sheetName = (builder.sheetName != null && !builder.sheetName.isBlank()) ? builder.sheetName : "data";
         this.headerCells = builder.headerCells;
         this.rows = builder.rows;
+        this.rowSource = builder.rowSource;
+        this.table = builder.table;
+        this.objects = builder.objects;
+        this.streamedRows = List.copyOf(builder.streamedRows);
     }
 
     public static Builder builder(String sheetName) {
@@ -42,10 +61,78 @@ public final class XlsxSheet {
         return headerCells != null && !headerCells.isEmpty();
     }
 
+    public boolean hasRowSource() {
+        return rowSource != null || !streamedRows.isEmpty();
+    }
+
+    public Table getTable() {
+        return table;
+    }
+
+    public boolean hasRowProducer() {
+        return !streamedRows.isEmpty();
+    }
+
+    /**
+     * Opens the body rows of this sheet: {@code rows}, then the row source, the table, the mapped objects and the
+     * streamed rows (result sets, object sources and row producers) in the order they were added.
+     * Row sources and producers are single-use, so a sheet that has one can be opened only once.
+     */
+    public RowProducer openRows() {
+        List<RowProducer> producers = new ArrayList<>();
+        try {
+            producers.add(RowProducers.ofTextRows(rows.iterator(), () -> {
+            }));
+
+            if (rowSource != null) {
+                Iterator<? extends List<String>> iterator = rowSource.take();
+                if (iterator == null) {
+                    throw alreadyConsumed();
+                }
+                producers.add(RowProducers.ofTextRows(iterator, rowSource::close));
+            }
+
+            if (table != null) {
+                producers.add(table.rows());
+            }
+
+            if (objects != null) {
+                producers.add(objects.get());
+            }
+
+            for (Supplier<RowProducer> streamed : streamedRows) {
+                RowProducer producer = streamed.get();
+                if (producer == null) {
+                    throw alreadyConsumed();
+                }
+                producers.add(producer);
+            }
+
+            return RowProducers.concat(producers);
+
+        } catch (RuntimeException e) {
+            // The caller never gets the producers opened so far, so a taken row source would otherwise stay open.
+            try {
+                RowProducers.concat(producers).close();
+            } catch (RuntimeException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    private XlsxException alreadyConsumed() {
+        return new XlsxException("Rows of sheet '" + sheetName + "' have already been consumed. A row source can be generated only once.");
+    }
+
     public static final class Builder {
         private final String sheetName;
         private List<XlsxSheetCell> headerCells;
         private List<List<String>> rows = new ArrayList<>();
+        private SingleUseSource<List<String>> rowSource;
+        private Table table;
+        private Supplier<RowProducer> objects;
+        private final List<Supplier<RowProducer>> streamedRows = new ArrayList<>();
 
         public Builder(String sheetName) {
             this.sheetName = sheetName;
@@ -101,6 +188,140 @@ public final class XlsxSheet {
             return this;
         }
 
+        public Builder rowSource(Iterator<? extends List<String>> rowSource) {
+            if (rowSource == null) {
+                throw new XlsxException("rowSource must not be null.");
+            }
+
+            this.rowSource = SingleUseSource.of(rowSource);
+            return this;
+        }
+
+        public Builder rowSource(Spliterator<? extends List<String>> rowSource) {
+            if (rowSource == null) {
+                throw new XlsxException("rowSource must not be null.");
+            }
+
+            this.rowSource = SingleUseSource.of(rowSource);
+            return this;
+        }
+
+        public Builder rowSource(Stream<? extends List<String>> rowSource) {
+            if (rowSource == null) {
+                throw new XlsxException("rowSource must not be null.");
+            }
+
+            this.rowSource = SingleUseSource.of(rowSource);
+            return this;
+        }
+
+        public Builder table(Table table) {
+            if (table == null) {
+                throw new XlsxException("table must not be null.");
+            }
+
+            if (headerCells == null) {
+                header(table.getColumnNames());
+            }
+
+            this.table = table;
+            return this;
+        }
+
+        /**
+         * Writes one row per object, one column per {@link com.shings.excelmaker.mapping.ExcelColumn} property of {@code type}.
+         * Unless a header is already set, the header names and column widths come from the annotations.
+         */
+        public <T> Builder objects(Class<T> type, Iterable<? extends T> objects) {
+            if (type == null) {
+                throw new XlsxException("type must not be null.");
+            }
+            if (objects == null) {
+                throw new XlsxException("objects must not be null.");
+            }
+
+            RowMapper<T> mapper = mapper(type);
+            this.objects = () -> mappedRows(mapper.rows(objects));
+            return this;
+        }
+
+        /**
+         * Like {@link #objects(Class, Iterable)}, but pulls the objects from a stream that can be consumed only once.
+         */
+        public <T> Builder objectSource(Class<T> type, Stream<? extends T> objects) {
+            if (type == null) {
+                throw new XlsxException("type must not be null.");
+            }
+            if (objects == null) {
+                throw new XlsxException("objectSource must not be null.");
+            }
+
+            RowMapper<T> mapper = mapper(type);
+            SingleUseSource<T> source = SingleUseSource.of(objects);
+            return addStreamedRows(() -> {
+                Iterator<? extends T> iterator = source.take();
+                return iterator == null ? null : mappedRows(mapper.rows(iterator, source::close));
+            });
+        }
+
+        /**
+         * Writes the rows of the result set as they are fetched. Unless a header is already set, the column labels become the header.
+         * The rows are only taken from the source when the sheet is generated.
+         */
+        public Builder resultSet(ResultSetSource resultSet) {
+            if (resultSet == null) {
+                throw new XlsxException("resultSet must not be null.");
+            }
+            if (resultSet.isConsumed()) {
+                throw new XlsxException("resultSet has already been consumed. A result set can be written only once.");
+            }
+
+            if (headerCells == null) {
+                header(resultSet.getColumnNames());
+            }
+
+            AtomicBoolean taken = new AtomicBoolean(false);
+            return addStreamedRows(() -> taken.compareAndSet(false, true) ? resultSet.rows() : null);
+        }
+
+        /**
+         * Appends the rows of {@code rowProducer}. Result sets, object sources and row producers are written in the
+         * order they were added, and each can be generated only once.
+         */
+        public Builder rowProducer(RowProducer rowProducer) {
+            if (rowProducer == null) {
+                throw new XlsxException("rowProducer must not be null.");
+            }
+
+            AtomicBoolean taken = new AtomicBoolean(false);
+            return addStreamedRows(() -> taken.compareAndSet(false, true) ? rowProducer : null);
+        }
+
+        private <T> RowMapper<T> mapper(Class<T> type) {
+            RowMapper<T> mapper;
+            try {
+                mapper = RowMapper.of(type);
+            } catch (IllegalArgumentException e) {
+                throw new XlsxException(e.getMessage(), e);
+            }
+
+            if (headerCells == null) {
+                headerStyled(mapper.getHeaderCells());
+            }
+
+            return mapper;
+        }
+
+        // Each supplier returns null once its rows have been taken, like SingleUseSource.take().
+        private Builder addStreamedRows(Supplier<RowProducer> rows) {
+            streamedRows.add(rows);
+            return this;
+        }
+
+        private static RowProducer mappedRows(RowProducer rows) {
+            return RowProducers.translateIllegalArguments(rows, e -> new XlsxException(e.getMessage(), e));
+        }
+
         public XlsxSheet build() {
             return new XlsxSheet(this);
         }
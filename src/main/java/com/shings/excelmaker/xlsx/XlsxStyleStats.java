@@ -0,0 +1,41 @@
+package com.shings.excelmaker.xlsx;
+
+public final class XlsxStyleStats {
+    private final int styleCount;
+    private final int fontCount;
+    private final long hitCount;
+    private final long missCount;
+
+    public XlsxStyleStats(int styleCount, int fontCount, long hitCount, long missCount) {
+        this.styleCount = styleCount;
+        this.fontCount = fontCount;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+    }
+
+    public int getStyleCount() {
+        return styleCount;
+    }
+
+    public int getFontCount() {
+        return fontCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public String toString() {
+        return "XlsxStyleStats{" +
+                "styleCount=" + styleCount +
+                ", fontCount=" + fontCount +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                '}';
+    }
+}
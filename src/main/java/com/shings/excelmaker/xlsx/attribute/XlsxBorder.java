@@ -3,18 +3,24 @@ package com.shings.excelmaker.xlsx.attribute;
 import org.apache.poi.ss.usermodel.BorderStyle;
 
 public enum XlsxBorder {
-    NONE(BorderStyle.NONE),
-    THIN(BorderStyle.THIN),
-    MEDIUM(BorderStyle.MEDIUM),
-    THICK(BorderStyle.THICK);
+    NONE(BorderStyle.NONE, null),
+    THIN(BorderStyle.THIN, "thin"),
+    MEDIUM(BorderStyle.MEDIUM, "medium"),
+    THICK(BorderStyle.THICK, "thick");
 
     private final BorderStyle poiBorder;
+    private final String ooxmlStyle;
 
-    XlsxBorder(BorderStyle poiBorder) {
+    XlsxBorder(BorderStyle poiBorder, String ooxmlStyle) {
         this.poiBorder = poiBorder;
+        this.ooxmlStyle = ooxmlStyle;
     }
 
     public BorderStyle toPoiBorder() {
         return poiBorder;
     }
+
+    public String toOoxmlStyle() {
+        return ooxmlStyle;
+    }
 }
@@ -3,18 +3,24 @@ package com.shings.excelmaker.xlsx.attribute;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 
 public enum XlsxTextAlign {
-    DEFAULT(null),
-    LEFT(HorizontalAlignment.LEFT),
-    CENTER(HorizontalAlignment.CENTER),
-    RIGHT(HorizontalAlignment.RIGHT);
+    DEFAULT(null, null),
+    LEFT(HorizontalAlignment.LEFT, "left"),
+    CENTER(HorizontalAlignment.CENTER, "center"),
+    RIGHT(HorizontalAlignment.RIGHT, "right");
 
     private final HorizontalAlignment poiAlignment;
+    private final String ooxmlAlignment;
 
-    XlsxTextAlign(HorizontalAlignment poiAlignment) {
+    XlsxTextAlign(HorizontalAlignment poiAlignment, String ooxmlAlignment) {
         this.poiAlignment = poiAlignment;
+        this.ooxmlAlignment = ooxmlAlignment;
     }
 
     public HorizontalAlignment toPoiAlignment() {
         return poiAlignment;
     }
+
+    public String toOoxmlAlignment() {
+        return ooxmlAlignment;
+    }
 }
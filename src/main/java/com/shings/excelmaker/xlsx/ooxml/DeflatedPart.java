@@ -0,0 +1,128 @@
+package com.shings.excelmaker.xlsx.ooxml;
+
+import com.shings.excelmaker.io.CompressionOptions;
+import com.shings.excelmaker.util.BlockDeflaterOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A package part that has already been rendered and compressed, ready to be copied into a ZIP entry as-is.
+ * Rendering and compression happen on the thread that creates the part, so parts can be produced concurrently.
+ * As the sizes are known before the entry is written, a {@link CompressionOptions#stored() stored} part uses the
+ * STORED method instead of deflate.
+ */
+final class DeflatedPart {
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+
+    private final String name;
+    private final int method;
+    private final long crc;
+    private final long compressedSize;
+    private final long size;
+    private final byte[] bytes;
+    private final Path file;
+
+    private DeflatedPart(String name, int method, long crc, long compressedSize, long size, byte[] bytes, Path file) {
+        this.name = name;
+        this.method = method;
+        this.crc = crc;
+        this.compressedSize = compressedSize;
+        this.size = size;
+        this.bytes = bytes;
+        this.file = file;
+    }
+
+    static DeflatedPart inMemory(String name, PartWriter partWriter, CompressionOptions compression) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (compression.isStored()) {
+            long crc = renderStored(out, partWriter);
+            return new DeflatedPart(name, STORED, crc, out.size(), out.size(), out.toByteArray(), null);
+        }
+
+        BlockDeflaterOutputStream deflated = deflate(out, partWriter, compression);
+        return new DeflatedPart(name, DEFLATED, deflated.getCrc(), deflated.getBytesWritten(), deflated.getBytesRead(), out.toByteArray(), null);
+    }
+
+    static DeflatedPart toFile(String name, Path file, PartWriter partWriter, CompressionOptions compression) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            if (compression.isStored()) {
+                long crc = renderStored(out, partWriter);
+                long size = Files.size(file);
+                return new DeflatedPart(name, STORED, crc, size, size, null, file);
+            }
+
+            BlockDeflaterOutputStream deflated = deflate(out, partWriter, compression);
+            return new DeflatedPart(name, DEFLATED, deflated.getCrc(), deflated.getBytesWritten(), deflated.getBytesRead(), null, file);
+        }
+    }
+
+    /**
+     * Renders the part into a raw deflate stream on {@code out}; the returned stream holds the CRC and sizes.
+     */
+    static BlockDeflaterOutputStream deflate(OutputStream out, PartWriter partWriter, CompressionOptions compression) throws IOException {
+        BlockDeflaterOutputStream deflated = new BlockDeflaterOutputStream(out, compression);
+        boolean completed = false;
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(deflated, StandardCharsets.UTF_8), WRITER_BUFFER_SIZE);
+            partWriter.write(writer);
+            writer.flush();
+            deflated.finish();
+            completed = true;
+            return deflated;
+        } finally {
+            if (!completed) {
+                deflated.abort();
+            }
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getMethod() {
+        return method;
+    }
+
+    long getCrc() {
+        return crc;
+    }
+
+    long getCompressedSize() {
+        return compressedSize;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    void copyTo(OutputStream out) throws IOException {
+        if (bytes != null) {
+            out.write(bytes);
+            return;
+        }
+
+        Files.copy(file, out);
+    }
+
+    private static long renderStored(OutputStream out, PartWriter partWriter) throws IOException {
+        CRC32 crc = new CRC32();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new CheckedOutputStream(out, crc), StandardCharsets.UTF_8), WRITER_BUFFER_SIZE);
+        partWriter.write(writer);
+        writer.flush();
+        return crc.getValue();
+    }
+}
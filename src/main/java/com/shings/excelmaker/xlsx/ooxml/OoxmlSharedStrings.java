@@ -0,0 +1,75 @@
+package com.shings.excelmaker.xlsx.ooxml;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared-strings table with a memory cap. Repeated strings are written once and referenced by index;
+ * once the dictionary reaches the cap, strings not seen before are written inline instead.
+ * Lookups of known strings take no lock, so sheets rendered in parallel only contend on new strings, and only
+ * until the table is full.
+ */
+final class OoxmlSharedStrings {
+    // Rough heap cost of one entry besides its characters: String, backing array, map node, boxed index, list slot.
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    private final long maxBytes;
+    private final ConcurrentHashMap<String, Integer> indexes = new ConcurrentHashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long bytes;
+    // Set once a new string no longer fits; from then on unknown strings go inline without taking the lock.
+    private volatile boolean full;
+
+    OoxmlSharedStrings(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    int indexOf(String value) {
+        Integer index = indexes.get(value);
+        if (index != null) {
+            return index;
+        }
+
+        if (full) {
+            return -1;
+        }
+
+        lock.lock();
+        try {
+            index = indexes.get(value);
+            if (index != null) {
+                return index;
+            }
+
+            long entryBytes = 2L * value.length() + ENTRY_OVERHEAD_BYTES;
+            if (bytes + entryBytes > maxBytes) {
+                full = true;
+                return -1;
+            }
+
+            bytes += entryBytes;
+            strings.add(value);
+            index = strings.size() - 1;
+            indexes.put(value, index);
+            return index;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void write(Writer writer) throws IOException {
+        writer.write(OoxmlXml.XML_DECLARATION);
+        writer.write("<sst xmlns=\"" + OoxmlXml.MAIN_NAMESPACE + "\" uniqueCount=\"" + strings.size() + "\">");
+        for (String value : strings) {
+            writer.write(OoxmlXml.needsSpacePreserve(value) ? "<si><t xml:space=\"preserve\">" : "<si><t>");
+            OoxmlXml.writeEscaped(writer, value);
+            writer.write("</t></si>");
+        }
+        writer.write("</sst>");
+    }
+}
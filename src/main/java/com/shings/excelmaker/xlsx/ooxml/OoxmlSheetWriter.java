@@ -0,0 +1,320 @@
+package com.shings.excelmaker.xlsx.ooxml;
+
+import com.shings.excelmaker.exception.XlsxException;
+import com.shings.excelmaker.row.CellSink;
+import com.shings.excelmaker.row.RowProducer;
+import com.shings.excelmaker.util.ExcelDateUtils;
+import com.shings.excelmaker.util.ProgressTracker;
+import com.shings.excelmaker.xlsx.XlsxSheet;
+import com.shings.excelmaker.xlsx.XlsxSheetCell;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+final class OoxmlSheetWriter implements CellSink {
+    private static final int MAX_ROWS = 1_048_576;
+    private static final int MAX_COLUMNS = 16_384;
+    private static final int MAX_TEXT_LENGTH = 32_767;
+
+    private final Writer writer;
+    private final OoxmlStyles styles;
+    private final OoxmlSharedStrings sharedStrings;
+    private final ProgressTracker.RowCounter rowCounter;
+    private final char[] digits = new char[20];
+    private String[] columnNames = new String[32];
+    private int rowIndex;
+    private boolean rowStarted;
+    private int columnIndex;
+    private int dateStyleIndex = -1;
+    private int dateTimeStyleIndex = -1;
+    private long bodyRows;
+    private long bodyCells;
+
+    OoxmlSheetWriter(Writer writer, OoxmlStyles styles, OoxmlSharedStrings sharedStrings, ProgressTracker.RowCounter rowCounter) {
+        this.writer = writer;
+        this.styles = styles;
+        this.sharedStrings = sharedStrings;
+        this.rowCounter = rowCounter;
+    }
+
+    void write(XlsxSheet sheet) throws IOException {
+        writer.write(OoxmlXml.XML_DECLARATION);
+        writer.write("<worksheet xmlns=\"" + OoxmlXml.MAIN_NAMESPACE + "\" xmlns:r=\"" + OoxmlXml.RELATIONSHIP_NAMESPACE + "\">");
+
+        if (sheet.hasHeader()) {
+            writeColumnWidths(sheet.getHeaderCells());
+        }
+
+        writer.write("<sheetData>");
+        rowIndex = 0;
+        if (sheet.hasHeader()) {
+            writeHeaderRow(sheet.getHeaderCells());
+        }
+
+        try (RowProducer rows = sheet.openRows()) {
+            startRow();
+            while (rows.next(this)) {
+                bodyRows++;
+                bodyCells += columnIndex;
+                endRow();
+                rowCounter.row();
+                startRow();
+            }
+            rowCounter.flush();
+
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.write("</sheetData></worksheet>");
+    }
+
+    long getRowCount() {
+        return bodyRows;
+    }
+
+    long getCellCount() {
+        return bodyCells;
+    }
+
+    @Override
+    public void text(String value) {
+        if (value == null) {
+            blank();
+            return;
+        }
+
+        try {
+            writeTextCell(columnIndex++, value, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void number(long value) {
+        try {
+            startCell(columnIndex++, 0);
+            writer.write("><v>");
+            writeLong(value);
+            writer.write("</v></c>");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void number(double value) {
+        if (value == (long) value && Math.abs(value) < 1e15) {
+            number((long) value);
+            return;
+        }
+
+        try {
+            startCell(columnIndex++, 0);
+            if (Double.isNaN(value)) {
+                writer.write(" t=\"e\"><v>#NUM!</v></c>");
+            } else if (Double.isInfinite(value)) {
+                writer.write(" t=\"e\"><v>#DIV/0!</v></c>");
+            } else {
+                writer.write("><v>");
+                writer.write(Double.toString(value));
+                writer.write("</v></c>");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void bool(boolean value) {
+        try {
+            startCell(columnIndex++, 0);
+            writer.write(value ? " t=\"b\"><v>1</v></c>" : " t=\"b\"><v>0</v></c>");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void date(LocalDate value) {
+        if (value == null) {
+            blank();
+            return;
+        }
+
+        if (dateStyleIndex < 0) {
+            dateStyleIndex = styles.dateStyleIndex();
+        }
+
+        writeSerialCell(ExcelDateUtils.toSerial(value), dateStyleIndex);
+    }
+
+    @Override
+    public void dateTime(LocalDateTime value) {
+        if (value == null) {
+            blank();
+            return;
+        }
+
+        if (dateTimeStyleIndex < 0) {
+            dateTimeStyleIndex = styles.dateTimeStyleIndex();
+        }
+
+        writeSerialCell(ExcelDateUtils.toSerial(value), dateTimeStyleIndex);
+    }
+
+    @Override
+    public void blank() {
+        columnIndex++;
+    }
+
+    private void writeSerialCell(double serial, int styleIndex) {
+        try {
+            startCell(columnIndex++, styleIndex);
+            writer.write("><v>");
+            if (serial == (long) serial) {
+                writeLong((long) serial);
+            } else {
+                writer.write(Double.toString(serial));
+            }
+            writer.write("</v></c>");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeColumnWidths(List<XlsxSheetCell> headerCells) throws IOException {
+        boolean opened = false;
+        for (int columnIndex = 0; columnIndex < headerCells.size(); columnIndex++) {
+            Integer columnWidth = headerCells.get(columnIndex).getColumnWidth();
+            if (columnWidth == null) {
+                continue;
+            }
+
+            if (!opened) {
+                writer.write("<cols>");
+                opened = true;
+            }
+
+            String column = String.valueOf(columnIndex + 1);
+            writer.write("<col min=\"" + column + "\" max=\"" + column + "\" width=\"" + (columnWidth / 256.0) + "\" customWidth=\"1\"/>");
+        }
+
+        if (opened) {
+            writer.write("</cols>");
+        }
+    }
+
+    private void writeHeaderRow(List<XlsxSheetCell> headerCells) throws IOException {
+        startRow();
+        for (int i = 0; i < headerCells.size(); i++) {
+            XlsxSheetCell headerCell = headerCells.get(i);
+            writeTextCell(i, headerCell.getText(), styles.headerStyleIndex(headerCell));
+        }
+        endRow();
+    }
+
+    private void startRow() {
+        rowStarted = false;
+        columnIndex = 0;
+    }
+
+    private void endRow() throws IOException {
+        if (rowStarted) {
+            writer.write("</row>");
+        }
+        rowIndex++;
+    }
+
+    private void writeTextCell(int columnIndex, String value, int styleIndex) throws IOException {
+        if (value.length() > MAX_TEXT_LENGTH) {
+            throw new XlsxException("The maximum length of cell contents (text) is " + MAX_TEXT_LENGTH + " characters.");
+        }
+
+        startCell(columnIndex, styleIndex);
+        int sharedIndex = sharedStrings == null ? -1 : sharedStrings.indexOf(value);
+        if (sharedIndex >= 0) {
+            writer.write(" t=\"s\"><v>");
+            writeLong(sharedIndex);
+            writer.write("</v></c>");
+            return;
+        }
+
+        writer.write(" t=\"inlineStr\"><is>");
+        writer.write(OoxmlXml.needsSpacePreserve(value) ? "<t xml:space=\"preserve\">" : "<t>");
+        OoxmlXml.writeEscaped(writer, value);
+        writer.write("</t></is></c>");
+    }
+
+    private void startCell(int columnIndex, int styleIndex) throws IOException {
+        if (!rowStarted) {
+            if (rowIndex >= MAX_ROWS) {
+                throw new XlsxException("Invalid row number (" + rowIndex + ") outside allowable range (0.." + (MAX_ROWS - 1) + ").");
+            }
+
+            writer.write("<row r=\"");
+            writeLong(rowIndex + 1);
+            writer.write("\">");
+            rowStarted = true;
+        }
+
+        writer.write("<c r=\"");
+        writer.write(columnName(columnIndex));
+        writeLong(rowIndex + 1);
+        writer.write('"');
+        if (styleIndex != 0) {
+            writer.write(" s=\"");
+            writeLong(styleIndex);
+            writer.write('"');
+        }
+    }
+
+    private String columnName(int columnIndex) {
+        if (columnIndex >= MAX_COLUMNS) {
+            throw new XlsxException("Invalid column index (" + columnIndex + ").  Allowable column range for EXCEL2007 is (0.." + (MAX_COLUMNS - 1) + ").");
+        }
+
+        if (columnIndex >= columnNames.length) {
+            columnNames = Arrays.copyOf(columnNames, Math.min(MAX_COLUMNS, Math.max(columnNames.length * 2, columnIndex + 1)));
+        }
+
+        String name = columnNames[columnIndex];
+        if (name == null) {
+            StringBuilder sb = new StringBuilder();
+            for (int n = columnIndex + 1; n > 0; n = (n - 1) / 26) {
+                sb.append((char) ('A' + (n - 1) % 26));
+            }
+            name = sb.reverse().toString();
+            columnNames[columnIndex] = name;
+        }
+
+        return name;
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writer.write(Long.toString(value));
+            return;
+        }
+
+        boolean negative = value < 0;
+        long remaining = negative ? -value : value;
+        int position = digits.length;
+        do {
+            digits[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+
+        if (negative) {
+            digits[--position] = '-';
+        }
+
+        writer.write(digits, position, digits.length - position);
+    }
+}
@@ -0,0 +1,143 @@
+package com.shings.excelmaker.xlsx.ooxml;
+
+import com.shings.excelmaker.util.ExcelDateUtils;
+import com.shings.excelmaker.xlsx.XlsxSheetCell;
+import com.shings.excelmaker.xlsx.XlsxStyleStats;
+import com.shings.excelmaker.xlsx.attribute.XlsxBorder;
+import com.shings.excelmaker.xlsx.attribute.XlsxColor;
+import com.shings.excelmaker.xlsx.style.StyleRegistry;
+import com.shings.excelmaker.xlsx.style.XlsxStyleKey;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class OoxmlStyles {
+    private static final String DEFAULT_FONT = "<sz val=\"11\"/><name val=\"Calibri\"/><family val=\"2\"/>";
+
+    private final StyleRegistry<Integer> styles = new StyleRegistry<>();
+    private final List<XlsxStyleKey> cellXfs = new ArrayList<>();
+    private final List<XlsxColor> fonts = new ArrayList<>();
+    private final List<XlsxColor> fills = new ArrayList<>();
+    private final List<XlsxBorder> borders = new ArrayList<>();
+    private final List<Integer> fontIds = new ArrayList<>();
+    private final List<Integer> fillIds = new ArrayList<>();
+    private final List<Integer> borderIds = new ArrayList<>();
+    // Sheets rendered in parallel share one style table; lookups happen once per header cell or sheet, not per cell.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    int headerStyleIndex(XlsxSheetCell cell) {
+        return styleIndex(XlsxStyleKey.of(cell));
+    }
+
+    int dateStyleIndex() {
+        return styleIndex(XlsxStyleKey.ofDataFormat(ExcelDateUtils.BUILTIN_DATE_FORMAT));
+    }
+
+    int dateTimeStyleIndex() {
+        return styleIndex(XlsxStyleKey.ofDataFormat(ExcelDateUtils.BUILTIN_DATE_TIME_FORMAT));
+    }
+
+    XlsxStyleStats stats() {
+        lock.lock();
+        try {
+            return styles.toStats(fonts.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void write(Writer writer) throws IOException {
+        writer.write(OoxmlXml.XML_DECLARATION);
+        writer.write("<styleSheet xmlns=\"" + OoxmlXml.MAIN_NAMESPACE + "\">");
+
+        writer.write("<fonts count=\"" + (fonts.size() + 1) + "\">");
+        writer.write("<font>" + DEFAULT_FONT + "</font>");
+        for (XlsxColor color : fonts) {
+            writer.write("<font><b/><sz val=\"11\"/>");
+            if (color != null) {
+                writer.write("<color indexed=\"" + color.toPoiColorIndex() + "\"/>");
+            }
+            writer.write("<name val=\"Calibri\"/><family val=\"2\"/></font>");
+        }
+        writer.write("</fonts>");
+
+        writer.write("<fills count=\"" + (fills.size() + 2) + "\">");
+        writer.write("<fill><patternFill patternType=\"none\"/></fill>");
+        writer.write("<fill><patternFill patternType=\"gray125\"/></fill>");
+        for (XlsxColor color : fills) {
+            writer.write("<fill><patternFill patternType=\"solid\"><fgColor indexed=\"" + color.toPoiColorIndex()
+                    + "\"/><bgColor indexed=\"64\"/></patternFill></fill>");
+        }
+        writer.write("</fills>");
+
+        writer.write("<borders count=\"" + (borders.size() + 1) + "\">");
+        writer.write("<border><left/><right/><top/><bottom/><diagonal/></border>");
+        for (XlsxBorder border : borders) {
+            String side = " style=\"" + border.toOoxmlStyle() + "\"/>";
+            writer.write("<border><left" + side + "<right" + side + "<top" + side + "<bottom" + side + "<diagonal/></border>");
+        }
+        writer.write("</borders>");
+
+        writer.write("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>");
+
+        writer.write("<cellXfs count=\"" + (cellXfs.size() + 1) + "\">");
+        writer.write("<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>");
+        for (int i = 0; i < cellXfs.size(); i++) {
+            XlsxStyleKey style = cellXfs.get(i);
+            String alignment = style.getHorizontalAlignment() == null ? null : style.getHorizontalAlignment().toOoxmlAlignment();
+            writer.write("<xf numFmtId=\"" + style.getDataFormat() + "\" fontId=\"" + fontIds.get(i) + "\" fillId=\"" + fillIds.get(i)
+                    + "\" borderId=\"" + borderIds.get(i) + "\" xfId=\"0\"");
+            if (fontIds.get(i) != 0) {
+                writer.write(" applyFont=\"1\"");
+            }
+            if (style.getDataFormat() != 0) {
+                writer.write(" applyNumberFormat=\"1\"");
+            }
+            if (fillIds.get(i) != 0) {
+                writer.write(" applyFill=\"1\"");
+            }
+            if (borderIds.get(i) != 0) {
+                writer.write(" applyBorder=\"1\"");
+            }
+            if (alignment == null) {
+                writer.write("/>");
+                continue;
+            }
+            writer.write(" applyAlignment=\"1\"><alignment horizontal=\"" + alignment + "\"/></xf>");
+        }
+        writer.write("</cellXfs>");
+
+        writer.write("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>");
+        writer.write("</styleSheet>");
+    }
+
+    private int styleIndex(XlsxStyleKey key) {
+        lock.lock();
+        try {
+            return styles.get(key, this::addCellXf);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int addCellXf(XlsxStyleKey key) {
+        cellXfs.add(key);
+        fontIds.add(key.isHeader() ? indexOf(fonts, key.getFontColor()) + 1 : 0);
+        fillIds.add(key.getBackgroundColor() == null ? 0 : indexOf(fills, key.getBackgroundColor()) + 2);
+        borderIds.add(key.getBorder() == null || key.getBorder().toOoxmlStyle() == null ? 0 : indexOf(borders, key.getBorder()) + 1);
+        return cellXfs.size();
+    }
+
+    private static <T> int indexOf(List<T> values, T value) {
+        int index = values.indexOf(value);
+        if (index >= 0) {
+            return index;
+        }
+
+        values.add(value);
+        return values.size() - 1;
+    }
+}
@@ -0,0 +1,416 @@
+package com.shings.excelmaker.xlsx.ooxml;
+
+import com.shings.excelmaker.exception.XlsxException;
+import com.shings.excelmaker.io.CompressionOptions;
+import com.shings.excelmaker.jfr.ExportPhaseEvent;
+import com.shings.excelmaker.util.NonClosingOutputStream;
+import com.shings.excelmaker.util.ProgressTracker;
+import com.shings.excelmaker.xlsx.XlsxSheet;
+import com.shings.excelmaker.xlsx.XlsxStyleStats;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public final class OoxmlWorkbookWriter {
+    private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+    private static final String INVALID_SHEET_NAME_CHARS = "[]:*?/\\";
+    private static final String SHARED_STRINGS_PART = "xl/sharedStrings.xml";
+
+    private final List<XlsxSheet> sheets;
+    private final Executor executor;
+    private final OoxmlStyles styles = new OoxmlStyles();
+    private final OoxmlSharedStrings sharedStrings;
+    private final CompressionOptions compression;
+    // Small parts, and sheets that already run on their own thread, are compressed on the rendering thread.
+    private final CompressionOptions partCompression;
+    private final SheetListener sheetListener;
+    private final ProgressTracker progress;
+
+    public OoxmlWorkbookWriter(List<XlsxSheet> sheets) {
+        this(sheets, null, 0L, CompressionOptions.defaults(), null, ProgressTracker.none());
+    }
+
+    public OoxmlWorkbookWriter(List<XlsxSheet> sheets, Executor executor) {
+        this(sheets, executor, 0L, CompressionOptions.defaults(), null, ProgressTracker.none());
+    }
+
+    /**
+     * @param sharedStringsMaxBytes memory cap of the shared-strings dictionary; 0 writes every string inline
+     * @param sheetListener         told about every rendered sheet on the calling thread, in sheet order; may be null
+     */
+    public OoxmlWorkbookWriter(List<XlsxSheet> sheets, Executor executor, long sharedStringsMaxBytes, CompressionOptions compression,
+                               SheetListener sheetListener, ProgressTracker progress) {
+        this.sheets = sheets;
+        this.executor = executor;
+        this.sharedStrings = sharedStringsMaxBytes > 0 ? new OoxmlSharedStrings(sharedStringsMaxBytes) : null;
+        this.compression = compression;
+        this.partCompression = compression.getExecutor() == null
+                ? compression
+                : CompressionOptions.builder().level(compression.getLevel()).blockSize(compression.getBlockSize()).build();
+        this.sheetListener = sheetListener;
+        this.progress = progress;
+    }
+
+    public interface SheetListener {
+        /**
+         * Called on the thread that renders the sheet, right before it is rendered. The returned flight recorder
+         * event, if any, is committed on the same thread once the sheet is written.
+         */
+        ExportPhaseEvent sheetStarted(String sheetName);
+
+        void sheetRendered(String sheetName, long rows, long cells, long compressedBytes, long durationNanos);
+    }
+
+    public void write(OutputStream out) throws IOException {
+        validateSheetNames();
+
+        if (executor == null || sheets.size() < 2) {
+            if (compression.getExecutor() != null) {
+                writeWithParallelDeflate(out);
+                return;
+            }
+
+            writeSequentially(out);
+            return;
+        }
+
+        writeInParallel(out);
+    }
+
+    public XlsxStyleStats getStyleStats() {
+        return styles.stats();
+    }
+
+    private void writeSequentially(OutputStream out) throws IOException {
+        // Closing the zip (rather than only finishing it) ends its Deflater; the caller still owns out.
+        try (ZipOutputStream zip = new ZipOutputStream(new NonClosingOutputStream(out), StandardCharsets.UTF_8)) {
+            zip.setLevel(compression.getLevel());
+            Writer writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), WRITER_BUFFER_SIZE);
+
+            writePart(zip, writer, "[Content_Types].xml", this::writeContentTypes);
+            writePart(zip, writer, "_rels/.rels", this::writeRootRelationships);
+            writePart(zip, writer, "xl/workbook.xml", this::writeWorkbook);
+            writePart(zip, writer, "xl/_rels/workbook.xml.rels", this::writeWorkbookRelationships);
+
+            for (int i = 0; i < sheets.size(); i++) {
+                XlsxSheet sheet = sheets.get(i);
+                ExportPhaseEvent event = startSheetEvent(sheet);
+                long startNanos = System.nanoTime();
+                OoxmlSheetWriter[] sheetWriter = new OoxmlSheetWriter[1];
+                long compressedBytes = writePart(zip, writer, sheetPartName(i), w -> {
+                    sheetWriter[0] = new OoxmlSheetWriter(w, styles, sharedStrings, progress.rowCounter());
+                    sheetWriter[0].write(sheet);
+                });
+                long durationNanos = System.nanoTime() - startNanos;
+                finishSheetEvent(event, sheetWriter[0], compressedBytes);
+                reportSheet(sheet, sheetWriter[0], compressedBytes, durationNanos);
+                progress.sheetCompleted();
+            }
+
+            // Styles and shared strings are collected while the sheets are written, so their parts go last.
+            writePart(zip, writer, "xl/styles.xml", styles::write);
+            if (sharedStrings != null) {
+                writePart(zip, writer, SHARED_STRINGS_PART, sharedStrings::write);
+            }
+        }
+    }
+
+    // Sheets are rendered one after another, but each sheet part is deflated in blocks on the compression executor.
+    private void writeWithParallelDeflate(OutputStream out) throws IOException {
+        ZipPackageWriter zip = new ZipPackageWriter(out);
+        zip.write("[Content_Types].xml", this::writeContentTypes, partCompression);
+        zip.write("_rels/.rels", this::writeRootRelationships, partCompression);
+        zip.write("xl/workbook.xml", this::writeWorkbook, partCompression);
+        zip.write("xl/_rels/workbook.xml.rels", this::writeWorkbookRelationships, partCompression);
+
+        for (int i = 0; i < sheets.size(); i++) {
+            XlsxSheet sheet = sheets.get(i);
+            ExportPhaseEvent event = startSheetEvent(sheet);
+            long startNanos = System.nanoTime();
+            OoxmlSheetWriter[] sheetWriter = new OoxmlSheetWriter[1];
+            long compressedBytes = zip.write(sheetPartName(i), w -> {
+                sheetWriter[0] = new OoxmlSheetWriter(w, styles, sharedStrings, progress.rowCounter());
+                sheetWriter[0].write(sheet);
+            }, compression);
+            long durationNanos = System.nanoTime() - startNanos;
+            finishSheetEvent(event, sheetWriter[0], compressedBytes);
+            reportSheet(sheet, sheetWriter[0], compressedBytes, durationNanos);
+            progress.sheetCompleted();
+        }
+
+        zip.write("xl/styles.xml", styles::write, partCompression);
+        if (sharedStrings != null) {
+            zip.write(SHARED_STRINGS_PART, sharedStrings::write, compression);
+        }
+        zip.finish();
+    }
+
+    // Each sheet is rendered and deflated into its own temp file on the executor; the package is then
+    // assembled in sheet order, copying every sheet as soon as it (and all sheets before it) are done.
+    private void writeInParallel(OutputStream out) throws IOException {
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<Path> files = new ArrayList<>(sheets.size());
+        List<Future<RenderedSheet>> renderedSheets = new ArrayList<>(sheets.size());
+        boolean completed = false;
+        try {
+            for (int i = 0; i < sheets.size(); i++) {
+                XlsxSheet sheet = sheets.get(i);
+                String partName = sheetPartName(i);
+                Path file = createTempFile(files);
+
+                FutureTask<RenderedSheet> task = new FutureTask<>(() -> {
+                    if (aborted.get()) {
+                        return null;
+                    }
+
+                    ExportPhaseEvent event = startSheetEvent(sheet);
+                    long startNanos = System.nanoTime();
+                    OoxmlSheetWriter[] sheetWriter = new OoxmlSheetWriter[1];
+                    DeflatedPart part = DeflatedPart.toFile(partName, file, w -> {
+                        sheetWriter[0] = new OoxmlSheetWriter(w, styles, sharedStrings, progress.rowCounter());
+                        sheetWriter[0].write(sheet);
+                    }, partCompression);
+                    long durationNanos = System.nanoTime() - startNanos;
+                    finishSheetEvent(event, sheetWriter[0], part.getCompressedSize());
+                    progress.sheetCompleted();
+                    return new RenderedSheet(part, sheetWriter[0], durationNanos);
+                });
+
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    throw new XlsxException("Failed to schedule rendering of sheet '" + sheet.getSheetName() + "'.", e);
+                }
+                renderedSheets.add(task);
+            }
+
+            ZipPackageWriter zip = new ZipPackageWriter(out);
+            zip.write(DeflatedPart.inMemory("[Content_Types].xml", this::writeContentTypes, partCompression));
+            zip.write(DeflatedPart.inMemory("_rels/.rels", this::writeRootRelationships, partCompression));
+            zip.write(DeflatedPart.inMemory("xl/workbook.xml", this::writeWorkbook, partCompression));
+            zip.write(DeflatedPart.inMemory("xl/_rels/workbook.xml.rels", this::writeWorkbookRelationships, partCompression));
+
+            for (int i = 0; i < renderedSheets.size(); i++) {
+                RenderedSheet renderedSheet = await(renderedSheets.get(i));
+                zip.write(renderedSheet.part);
+                reportSheet(sheets.get(i), renderedSheet.sheetWriter, renderedSheet.part.getCompressedSize(), renderedSheet.durationNanos);
+            }
+
+            zip.write(DeflatedPart.inMemory("xl/styles.xml", styles::write, partCompression));
+            if (sharedStrings != null) {
+                zip.write(DeflatedPart.toFile(SHARED_STRINGS_PART, createTempFile(files), sharedStrings::write, compression));
+            }
+            zip.finish();
+            completed = true;
+
+        } finally {
+            if (!completed) {
+                aborted.set(true);
+                awaitQuietly(renderedSheets);
+            }
+
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private static Path createTempFile(List<Path> files) throws IOException {
+        Path file = Files.createTempFile("excelmaker-part", ".xml.deflate");
+        files.add(file);
+        return file;
+    }
+
+    private ExportPhaseEvent startSheetEvent(XlsxSheet sheet) {
+        return sheetListener == null ? null : sheetListener.sheetStarted(sheet.getSheetName());
+    }
+
+    private static void finishSheetEvent(ExportPhaseEvent event, OoxmlSheetWriter sheetWriter, long compressedBytes) {
+        if (event != null) {
+            event.finish(sheetWriter.getRowCount(), sheetWriter.getCellCount(), compressedBytes);
+        }
+    }
+
+    private void reportSheet(XlsxSheet sheet, OoxmlSheetWriter sheetWriter, long compressedBytes, long durationNanos) {
+        if (sheetListener != null) {
+            sheetListener.sheetRendered(sheet.getSheetName(), sheetWriter.getRowCount(), sheetWriter.getCellCount(), compressedBytes, durationNanos);
+        }
+    }
+
+    private static RenderedSheet await(Future<RenderedSheet> renderedSheet) throws IOException {
+        try {
+            return renderedSheet.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a sheet to be rendered.");
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new XlsxException("Failed to render sheet.", cause);
+        }
+    }
+
+    // Running workers still write to their temp files, so they must finish before the files can be deleted.
+    private static void awaitQuietly(List<Future<RenderedSheet>> renderedSheets) {
+        boolean interrupted = false;
+        for (Future<RenderedSheet> renderedSheet : renderedSheets) {
+            while (true) {
+                try {
+                    renderedSheet.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException ignored) {
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Leftover temp files are not worth failing the export for.
+        }
+    }
+
+    private void validateSheetNames() {
+        Set<String> names = new HashSet<>();
+        for (XlsxSheet sheet : sheets) {
+            String name = sheet.getSheetName();
+            if (name.length() > MAX_SHEET_NAME_LENGTH) {
+                throw new XlsxException("Sheet name '" + name + "' is longer than " + MAX_SHEET_NAME_LENGTH + " characters.");
+            }
+
+            for (int i = 0; i < name.length(); i++) {
+                if (INVALID_SHEET_NAME_CHARS.indexOf(name.charAt(i)) >= 0) {
+                    throw new XlsxException("Invalid char (" + name.charAt(i) + ") found at index (" + i + ") in sheet name '" + name + "'.");
+                }
+            }
+
+            if (name.startsWith("'") || name.endsWith("'")) {
+                throw new XlsxException("Invalid sheet name '" + name + "'. Sheet names must not begin or end with (').");
+            }
+
+            if (!names.add(name.toUpperCase(Locale.ROOT))) {
+                throw new XlsxException("The workbook already contains a sheet named '" + name + "'.");
+            }
+        }
+    }
+
+    private void writeContentTypes(Writer writer) throws IOException {
+        writer.write(OoxmlXml.XML_DECLARATION);
+        writer.write("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">");
+        writer.write("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>");
+        writer.write("<Default Extension=\"xml\" ContentType=\"application/xml\"/>");
+        writer.write("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        writer.write("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        if (sharedStrings != null) {
+            writer.write("<Override PartName=\"/" + SHARED_STRINGS_PART
+                    + "\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>");
+        }
+        for (int i = 0; i < sheets.size(); i++) {
+            writer.write("<Override PartName=\"/" + sheetPartName(i)
+                    + "\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        writer.write("</Types>");
+    }
+
+    private void writeRootRelationships(Writer writer) throws IOException {
+        writer.write(OoxmlXml.XML_DECLARATION);
+        writer.write("<Relationships xmlns=\"" + OoxmlXml.PACKAGE_RELATIONSHIP_NAMESPACE + "\">");
+        writer.write("<Relationship Id=\"rId1\" Type=\"" + OoxmlXml.RELATIONSHIP_NAMESPACE + "/officeDocument\" Target=\"xl/workbook.xml\"/>");
+        writer.write("</Relationships>");
+    }
+
+    private void writeWorkbook(Writer writer) throws IOException {
+        writer.write(OoxmlXml.XML_DECLARATION);
+        writer.write("<workbook xmlns=\"" + OoxmlXml.MAIN_NAMESPACE + "\" xmlns:r=\"" + OoxmlXml.RELATIONSHIP_NAMESPACE + "\">");
+        writer.write("<sheets>");
+        for (int i = 0; i < sheets.size(); i++) {
+            writer.write("<sheet name=\"");
+            OoxmlXml.writeEscapedAttribute(writer, sheets.get(i).getSheetName());
+            writer.write("\" sheetId=\"" + (i + 1) + "\" r:id=\"rId" + (i + 1) + "\"/>");
+        }
+        writer.write("</sheets>");
+        writer.write("</workbook>");
+    }
+
+    private void writeWorkbookRelationships(Writer writer) throws IOException {
+        writer.write(OoxmlXml.XML_DECLARATION);
+        writer.write("<Relationships xmlns=\"" + OoxmlXml.PACKAGE_RELATIONSHIP_NAMESPACE + "\">");
+        for (int i = 0; i < sheets.size(); i++) {
+            writer.write("<Relationship Id=\"rId" + (i + 1) + "\" Type=\"" + OoxmlXml.RELATIONSHIP_NAMESPACE
+                    + "/worksheet\" Target=\"worksheets/sheet" + (i + 1) + ".xml\"/>");
+        }
+        writer.write("<Relationship Id=\"rId" + (sheets.size() + 1) + "\" Type=\"" + OoxmlXml.RELATIONSHIP_NAMESPACE
+                + "/styles\" Target=\"styles.xml\"/>");
+        if (sharedStrings != null) {
+            writer.write("<Relationship Id=\"rId" + (sheets.size() + 2) + "\" Type=\"" + OoxmlXml.RELATIONSHIP_NAMESPACE
+                    + "/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+        }
+        writer.write("</Relationships>");
+    }
+
+    private static String sheetPartName(int sheetIndex) {
+        return "xl/worksheets/sheet" + (sheetIndex + 1) + ".xml";
+    }
+
+    private static long writePart(ZipOutputStream zip, Writer writer, String name, PartWriter partWriter) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        zip.putNextEntry(entry);
+        partWriter.write(writer);
+        writer.flush();
+        zip.closeEntry();
+        return entry.getCompressedSize();
+    }
+
+    private static final class RenderedSheet {
+        private final DeflatedPart part;
+        private final OoxmlSheetWriter sheetWriter;
+        private final long durationNanos;
+
+        private RenderedSheet(DeflatedPart part, OoxmlSheetWriter sheetWriter, long durationNanos) {
+            this.part = part;
+            this.sheetWriter = sheetWriter;
+            this.durationNanos = durationNanos;
+        }
+    }
+}
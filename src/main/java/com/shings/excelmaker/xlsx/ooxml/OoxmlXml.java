@@ -0,0 +1,123 @@
+package com.shings.excelmaker.xlsx.ooxml;
+
+import java.io.IOException;
+import java.io.Writer;
+
+final class OoxmlXml {
+    static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    static final String MAIN_NAMESPACE = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    static final String RELATIONSHIP_NAMESPACE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    static final String PACKAGE_RELATIONSHIP_NAMESPACE = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private OoxmlXml() {
+    }
+
+    static boolean needsSpacePreserve(String value) {
+        int length = value.length();
+        return length > 0 && (isXmlWhitespace(value.charAt(0)) || isXmlWhitespace(value.charAt(length - 1)));
+    }
+
+    static void writeEscaped(Writer writer, String value) throws IOException {
+        writeEscaped(writer, value, false);
+    }
+
+    static void writeEscapedAttribute(Writer writer, String value) throws IOException {
+        writeEscaped(writer, value, true);
+    }
+
+    // Parsers normalise a raw CR (and CRLF) to LF everywhere, and a raw tab or LF to a space inside attribute values,
+    // so those characters are written as character references wherever they would otherwise change.
+    private static void writeEscaped(Writer writer, String value, boolean attribute) throws IOException {
+        int length = value.length();
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c == '&') {
+                replacement = "&amp;";
+            } else if (c == '<') {
+                replacement = "&lt;";
+            } else if (c == '>') {
+                replacement = "&gt;";
+            } else if (c == '"') {
+                replacement = "&quot;";
+            } else if (c == '\r') {
+                replacement = "&#xD;";
+            } else if (attribute && c == '\n') {
+                replacement = "&#xA;";
+            } else if (attribute && c == '\t') {
+                replacement = "&#x9;";
+            } else if (c == '_' && isOoxmlCharEscape(value, i)) {
+                // A literal "_xHHHH_" would be decoded by readers, so its leading underscore is escaped itself.
+                replacement = "_x005F_";
+            } else if (isValidXmlChar(value, i, c)) {
+                if (Character.isHighSurrogate(c)) {
+                    i++;
+                }
+                continue;
+            } else {
+                replacement = null;
+            }
+
+            if (i > runStart) {
+                writer.write(value, runStart, i - runStart);
+            }
+
+            if (replacement != null) {
+                writer.write(replacement);
+            } else {
+                writeOoxmlCharEscape(writer, c);
+            }
+            runStart = i + 1;
+        }
+
+        if (runStart < length) {
+            writer.write(value, runStart, length - runStart);
+        }
+    }
+
+    private static boolean isValidXmlChar(String value, int index, char c) {
+        if (c >= 0x20 && c < 0xD800) {
+            return true;
+        }
+
+        if (c == '\t' || c == '\n' || c == '\r') {
+            return true;
+        }
+
+        if (Character.isHighSurrogate(c)) {
+            return index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1));
+        }
+
+        return c >= 0xE000 && c <= 0xFFFD;
+    }
+
+    // Characters that XML 1.0 cannot carry are written as the OOXML "_xHHHH_" escape, the same way Excel does.
+    private static void writeOoxmlCharEscape(Writer writer, char c) throws IOException {
+        writer.write("_x");
+        writer.write(HEX_DIGITS[(c >> 12) & 0xF]);
+        writer.write(HEX_DIGITS[(c >> 8) & 0xF]);
+        writer.write(HEX_DIGITS[(c >> 4) & 0xF]);
+        writer.write(HEX_DIGITS[c & 0xF]);
+        writer.write('_');
+    }
+
+    private static boolean isOoxmlCharEscape(String value, int index) {
+        if (index + 7 > value.length() || value.charAt(index + 1) != 'x' || value.charAt(index + 6) != '_') {
+            return false;
+        }
+
+        for (int i = index + 2; i < index + 6; i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isXmlWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
@@ -0,0 +1,9 @@
+package com.shings.excelmaker.xlsx.ooxml;
+
+import java.io.IOException;
+import java.io.Writer;
+
+@FunctionalInterface
+interface PartWriter {
+    void write(Writer writer) throws IOException;
+}
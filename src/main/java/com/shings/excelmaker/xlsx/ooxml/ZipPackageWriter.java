@@ -0,0 +1,222 @@
+package com.shings.excelmaker.xlsx.ooxml;
+
+import com.shings.excelmaker.io.CompressionOptions;
+import com.shings.excelmaker.util.BlockDeflaterOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Minimal ZIP writer for entries that were compressed up front (see {@link DeflatedPart}) or that are deflated
+ * while they are written, possibly in parallel blocks, and followed by a data descriptor.
+ * {@link java.util.zip.ZipOutputStream} always compresses on the calling thread, which would serialize the most
+ * expensive step of parallel rendering. Entries larger than 4 GB and packages with more than 65,535 entries
+ * are written with ZIP64 extensions.
+ */
+final class ZipPackageWriter {
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int VERSION = 20;
+    private static final int ZIP64_VERSION = 45;
+    private static final int DATA_DESCRIPTOR_FLAG = 1 << 3;
+    private static final int UTF8_FLAG = 1 << 11;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    private final OutputStream out;
+    private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    private final byte[] buffer = new byte[8];
+    private final int dosTime;
+    private final int dosDate;
+    private long position;
+    private int entryCount;
+
+    ZipPackageWriter(OutputStream out) {
+        this.out = out;
+
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() >> 1);
+        this.dosDate = (Math.max(now.getYear() - 1980, 0) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+    }
+
+    void write(DeflatedPart part) throws IOException {
+        byte[] name = part.getName().getBytes(StandardCharsets.UTF_8);
+        long offset = position;
+        boolean zip64Sizes = part.getSize() >= ZIP64_MAGIC || part.getCompressedSize() >= ZIP64_MAGIC;
+
+        writeInt(out, LOCAL_HEADER_SIGNATURE);
+        writeShort(out, zip64Sizes ? ZIP64_VERSION : VERSION);
+        writeEntryFields(out, UTF8_FLAG, part.getMethod(), part.getCrc());
+        writeInt(out, zip64Sizes ? ZIP64_MAGIC : part.getCompressedSize());
+        writeInt(out, zip64Sizes ? ZIP64_MAGIC : part.getSize());
+        writeShort(out, name.length);
+        writeShort(out, zip64Sizes ? 20 : 0);
+        writeBytes(out, name);
+        if (zip64Sizes) {
+            writeShort(out, ZIP64_EXTRA_ID);
+            writeShort(out, 16);
+            writeLong(out, part.getSize());
+            writeLong(out, part.getCompressedSize());
+        }
+
+        part.copyTo(out);
+        position += part.getCompressedSize();
+
+        addCentralEntry(name, UTF8_FLAG, part.getMethod(), part.getCrc(), part.getCompressedSize(), part.getSize(), offset);
+    }
+
+    // The sizes are only known once the part has been deflated, so they follow the data in a data descriptor.
+    // STORED entries cannot use a data descriptor portably, which is why streamed entries are always deflated.
+    long write(String partName, PartWriter partWriter, CompressionOptions compression) throws IOException {
+        byte[] name = partName.getBytes(StandardCharsets.UTF_8);
+        long offset = position;
+
+        writeInt(out, LOCAL_HEADER_SIGNATURE);
+        writeShort(out, VERSION);
+        writeEntryFields(out, UTF8_FLAG | DATA_DESCRIPTOR_FLAG, DeflatedPart.DEFLATED, 0);
+        writeInt(out, 0);
+        writeInt(out, 0);
+        writeShort(out, name.length);
+        writeShort(out, 0);
+        writeBytes(out, name);
+
+        BlockDeflaterOutputStream deflated = DeflatedPart.deflate(out, partWriter, compression);
+        position += deflated.getBytesWritten();
+
+        long crc = deflated.getCrc();
+        long compressedSize = deflated.getBytesWritten();
+        long size = deflated.getBytesRead();
+        writeInt(out, DATA_DESCRIPTOR_SIGNATURE);
+        writeInt(out, crc);
+        if (size >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC) {
+            writeLong(out, compressedSize);
+            writeLong(out, size);
+        } else {
+            writeInt(out, compressedSize);
+            writeInt(out, size);
+        }
+
+        addCentralEntry(name, UTF8_FLAG | DATA_DESCRIPTOR_FLAG, DeflatedPart.DEFLATED, crc, compressedSize, size, offset);
+        return compressedSize;
+    }
+
+    void finish() throws IOException {
+        long centralDirectoryOffset = position;
+        long centralDirectorySize = centralDirectory.size();
+        centralDirectory.writeTo(out);
+        position += centralDirectorySize;
+
+        boolean zip64 = entryCount >= ZIP64_MAGIC_COUNT || centralDirectoryOffset >= ZIP64_MAGIC || centralDirectorySize >= ZIP64_MAGIC;
+        if (zip64) {
+            long zip64EndOffset = position;
+            writeInt(out, ZIP64_END_SIGNATURE);
+            writeLong(out, 44);
+            writeShort(out, ZIP64_VERSION);
+            writeShort(out, ZIP64_VERSION);
+            writeInt(out, 0);
+            writeInt(out, 0);
+            writeLong(out, entryCount);
+            writeLong(out, entryCount);
+            writeLong(out, centralDirectorySize);
+            writeLong(out, centralDirectoryOffset);
+
+            writeInt(out, ZIP64_LOCATOR_SIGNATURE);
+            writeInt(out, 0);
+            writeLong(out, zip64EndOffset);
+            writeInt(out, 1);
+        }
+
+        writeInt(out, END_SIGNATURE);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, Math.min(entryCount, ZIP64_MAGIC_COUNT));
+        writeShort(out, Math.min(entryCount, ZIP64_MAGIC_COUNT));
+        writeInt(out, Math.min(centralDirectorySize, ZIP64_MAGIC));
+        writeInt(out, Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+        writeShort(out, 0);
+        out.flush();
+    }
+
+    private void addCentralEntry(byte[] name, int flags, int method, long crc, long compressedSize, long size, long offset) throws IOException {
+        boolean zip64Sizes = size >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC;
+        boolean zip64Offset = offset >= ZIP64_MAGIC;
+        int extraLength = (zip64Sizes ? 16 : 0) + (zip64Offset ? 8 : 0);
+        boolean zip64 = extraLength > 0;
+
+        writeInt(centralDirectory, CENTRAL_HEADER_SIGNATURE);
+        writeShort(centralDirectory, zip64 ? ZIP64_VERSION : VERSION);
+        writeShort(centralDirectory, zip64 ? ZIP64_VERSION : VERSION);
+        writeEntryFields(centralDirectory, flags, method, crc);
+        writeInt(centralDirectory, zip64Sizes ? ZIP64_MAGIC : compressedSize);
+        writeInt(centralDirectory, zip64Sizes ? ZIP64_MAGIC : size);
+        writeShort(centralDirectory, name.length);
+        writeShort(centralDirectory, zip64 ? extraLength + 4 : 0);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeInt(centralDirectory, 0);
+        writeInt(centralDirectory, zip64Offset ? ZIP64_MAGIC : offset);
+        centralDirectory.write(name);
+        if (zip64) {
+            writeShort(centralDirectory, ZIP64_EXTRA_ID);
+            writeShort(centralDirectory, extraLength);
+            if (zip64Sizes) {
+                writeLong(centralDirectory, size);
+                writeLong(centralDirectory, compressedSize);
+            }
+            if (zip64Offset) {
+                writeLong(centralDirectory, offset);
+            }
+        }
+
+        entryCount++;
+    }
+
+    private void writeEntryFields(OutputStream target, int flags, int method, long crc) throws IOException {
+        writeShort(target, flags);
+        writeShort(target, method);
+        writeShort(target, dosTime);
+        writeShort(target, dosDate);
+        writeInt(target, crc);
+    }
+
+    private void writeShort(OutputStream target, int value) throws IOException {
+        buffer[0] = (byte) value;
+        buffer[1] = (byte) (value >>> 8);
+        write(target, 2);
+    }
+
+    private void writeInt(OutputStream target, long value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            buffer[i] = (byte) (value >>> (8 * i));
+        }
+        write(target, 4);
+    }
+
+    private void writeLong(OutputStream target, long value) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            buffer[i] = (byte) (value >>> (8 * i));
+        }
+        write(target, 8);
+    }
+
+    private void writeBytes(OutputStream target, byte[] bytes) throws IOException {
+        target.write(bytes);
+        position += bytes.length;
+    }
+
+    private void write(OutputStream target, int length) throws IOException {
+        target.write(buffer, 0, length);
+        if (target == out) {
+            position += length;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.shings.excelmaker.xlsx.poi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes a version 3 compound file (MS-CFB) in one forward pass.
+ * Every stream is declared with its size up front, so the header, allocation tables and directory are laid out
+ * before any content and the streams are then copied to the output in order, without seeking or block mapping.
+ */
+final class CompoundFileWriter {
+    private static final int SECTOR_SIZE = 512;
+    private static final int MINI_SECTOR_SIZE = 64;
+    private static final int MINI_STREAM_CUTOFF = 4096;
+    private static final int DIRECTORY_ENTRY_SIZE = 128;
+    private static final int INTS_PER_SECTOR = SECTOR_SIZE / Integer.BYTES;
+    private static final int HEADER_DIFAT_ENTRIES = 109;
+    private static final int MAX_NAME_LENGTH = 31;
+    private static final long MAX_STREAM_SIZE = 0xFFFFFFFFL;
+    private static final long MAX_SECTORS = 0xFFFFFFFAL;
+
+    private static final int FREE_SECTOR = -1;
+    private static final int END_OF_CHAIN = -2;
+    private static final int FAT_SECTOR = -3;
+    private static final int DIFAT_SECTOR = -4;
+    private static final int NO_STREAM = -1;
+
+    private static final byte TYPE_STORAGE = 1;
+    private static final byte TYPE_STREAM = 2;
+    private static final byte TYPE_ROOT = 5;
+    private static final byte COLOR_BLACK = 1;
+
+    private static final byte[] SIGNATURE = {
+            (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1
+    };
+
+    // Same sibling order as POI's PropertyComparator: shorter names first, then case-insensitive.
+    private static final Comparator<Entry> SIBLING_ORDER = Comparator
+            .<Entry>comparingInt(entry -> entry.name.length())
+            .thenComparing(entry -> entry.name.toUpperCase(Locale.ROOT));
+
+    private final Storage root = new Storage("Root Entry", true);
+
+    Storage root() {
+        return root;
+    }
+
+    void write(OutputStream out) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        List<Stream> smallStreams = new ArrayList<>();
+        List<Stream> largeStreams = new ArrayList<>();
+        collect(root, entries, smallStreams, largeStreams);
+
+        long miniSectors = 0;
+        for (Stream stream : smallStreams) {
+            stream.startSector = stream.size == 0 ? END_OF_CHAIN : (int) miniSectors;
+            miniSectors += sectorsFor(stream.size, MINI_SECTOR_SIZE);
+        }
+
+        long directorySectors = sectorsFor(entries.size(), SECTOR_SIZE / DIRECTORY_ENTRY_SIZE);
+        long miniFatSectors = sectorsFor(miniSectors, INTS_PER_SECTOR);
+        long miniStreamSectors = sectorsFor(miniSectors * MINI_SECTOR_SIZE, SECTOR_SIZE);
+        long dataSectors = directorySectors + miniFatSectors + miniStreamSectors;
+        for (Stream stream : largeStreams) {
+            dataSectors += sectorsFor(stream.size, SECTOR_SIZE);
+        }
+
+        // The FAT also maps its own sectors and the DIFAT sectors, so grow both until the counts settle.
+        long fatSectors = 0;
+        long difatSectors = 0;
+        while (true) {
+            long totalSectors = dataSectors + fatSectors + difatSectors;
+            long requiredFat = sectorsFor(totalSectors, INTS_PER_SECTOR);
+            long requiredDifat = requiredFat > HEADER_DIFAT_ENTRIES
+                    ? sectorsFor(requiredFat - HEADER_DIFAT_ENTRIES, INTS_PER_SECTOR - 1)
+                    : 0;
+            if (requiredFat == fatSectors && requiredDifat == difatSectors) {
+                break;
+            }
+            fatSectors = requiredFat;
+            difatSectors = requiredDifat;
+        }
+
+        if (dataSectors + fatSectors + difatSectors > MAX_SECTORS) {
+            throw new IOException("Compound file is too large: " + (dataSectors + fatSectors + difatSectors) + " sectors.");
+        }
+
+        long nextSector = fatSectors + difatSectors;
+        int directoryStart = (int) nextSector;
+        nextSector += directorySectors;
+        int miniFatStart = (int) nextSector;
+        nextSector += miniFatSectors;
+        int miniStreamStart = (int) nextSector;
+        nextSector += miniStreamSectors;
+        for (Stream stream : largeStreams) {
+            stream.startSector = (int) nextSector;
+            nextSector += sectorsFor(stream.size, SECTOR_SIZE);
+        }
+
+        root.startSector = miniStreamSectors > 0 ? miniStreamStart : END_OF_CHAIN;
+        root.size = miniSectors * MINI_SECTOR_SIZE;
+
+        SectorOutputStream sectors = new SectorOutputStream(out);
+
+        // Header
+        sectors.put(SIGNATURE);
+        sectors.pad(16);
+        sectors.putShort(0x003E);
+        sectors.putShort(0x0003);
+        sectors.putShort(0xFFFE);
+        sectors.putShort(9);
+        sectors.putShort(6);
+        sectors.pad(6);
+        sectors.putInt(0);
+        sectors.putInt((int) fatSectors);
+        sectors.putInt(directoryStart);
+        sectors.putInt(0);
+        sectors.putInt(MINI_STREAM_CUTOFF);
+        sectors.putInt(miniFatSectors > 0 ? miniFatStart : END_OF_CHAIN);
+        sectors.putInt((int) miniFatSectors);
+        sectors.putInt(difatSectors > 0 ? (int) fatSectors : END_OF_CHAIN);
+        sectors.putInt((int) difatSectors);
+        for (int i = 0; i < HEADER_DIFAT_ENTRIES; i++) {
+            sectors.putInt(i < fatSectors ? i : FREE_SECTOR);
+        }
+
+        // FAT
+        for (long i = 0; i < fatSectors; i++) {
+            sectors.putInt(FAT_SECTOR);
+        }
+        for (long i = 0; i < difatSectors; i++) {
+            sectors.putInt(DIFAT_SECTOR);
+        }
+        sectors.putChain(directoryStart, directorySectors);
+        sectors.putChain(miniFatStart, miniFatSectors);
+        sectors.putChain(miniStreamStart, miniStreamSectors);
+        for (Stream stream : largeStreams) {
+            sectors.putChain(stream.startSector, sectorsFor(stream.size, SECTOR_SIZE));
+        }
+        sectors.fillSector(FREE_SECTOR);
+
+        // DIFAT
+        for (long sector = 0; sector < difatSectors; sector++) {
+            for (int i = 0; i < INTS_PER_SECTOR - 1; i++) {
+                long fatSector = HEADER_DIFAT_ENTRIES + sector * (INTS_PER_SECTOR - 1) + i;
+                sectors.putInt(fatSector < fatSectors ? (int) fatSector : FREE_SECTOR);
+            }
+            sectors.putInt(sector < difatSectors - 1 ? (int) (fatSectors + sector + 1) : END_OF_CHAIN);
+        }
+
+        // Directory
+        for (Entry entry : entries) {
+            writeDirectoryEntry(sectors, entry);
+        }
+        for (long i = entries.size(); i < directorySectors * (SECTOR_SIZE / DIRECTORY_ENTRY_SIZE); i++) {
+            writeEmptyDirectoryEntry(sectors);
+        }
+
+        // MiniFAT
+        for (Stream stream : smallStreams) {
+            if (stream.size > 0) {
+                sectors.putChain(stream.startSector, sectorsFor(stream.size, MINI_SECTOR_SIZE));
+            }
+        }
+        sectors.fillSector(FREE_SECTOR);
+
+        // Mini stream, then the large streams, each padded to its allocation unit.
+        for (Stream stream : smallStreams) {
+            stream.writeContent(sectors);
+            sectors.padTo(MINI_SECTOR_SIZE);
+        }
+        sectors.padTo(SECTOR_SIZE);
+        for (Stream stream : largeStreams) {
+            stream.writeContent(sectors);
+            sectors.padTo(SECTOR_SIZE);
+        }
+
+        sectors.flush();
+    }
+
+    private static void collect(Storage storage,
+                                List<Entry> entries,
+                                List<Stream> smallStreams,
+                                List<Stream> largeStreams) {
+        storage.id = entries.size();
+        entries.add(storage);
+
+        for (Entry child : storage.children) {
+            if (child instanceof Storage) {
+                collect((Storage) child, entries, smallStreams, largeStreams);
+            } else {
+                Stream stream = (Stream) child;
+                stream.id = entries.size();
+                entries.add(stream);
+                (stream.size < MINI_STREAM_CUTOFF ? smallStreams : largeStreams).add(stream);
+            }
+        }
+
+        linkSiblings(storage);
+    }
+
+    /**
+     * Links the children of a storage into the sibling tree the same way POI does: the middle entry is the root,
+     * the entries before it hang off its left side and the entries after it off its right side.
+     */
+    private static void linkSiblings(Storage storage) {
+        if (storage.children.isEmpty()) {
+            return;
+        }
+
+        List<Entry> children = new ArrayList<>(storage.children);
+        children.sort(SIBLING_ORDER);
+        int midpoint = children.size() / 2;
+        storage.child = children.get(midpoint).id;
+
+        for (int i = 1; i <= midpoint; i++) {
+            children.get(i).left = children.get(i - 1).id;
+        }
+        for (int i = midpoint; i < children.size() - 1; i++) {
+            children.get(i).right = children.get(i + 1).id;
+        }
+    }
+
+    private static void writeDirectoryEntry(SectorOutputStream sectors, Entry entry) throws IOException {
+        byte[] name = entry.name.getBytes(StandardCharsets.UTF_16LE);
+        sectors.put(name);
+        sectors.pad(64 - name.length);
+        sectors.putShort(name.length + 2);
+        sectors.putByte(entry.type());
+        sectors.putByte(COLOR_BLACK);
+        sectors.putInt(entry.left);
+        sectors.putInt(entry.right);
+        sectors.putInt(entry instanceof Storage ? ((Storage) entry).child : NO_STREAM);
+        sectors.pad(16 + 4 + 8 + 8);
+        sectors.putInt(entry.startSector);
+        sectors.putLong(entry.size);
+    }
+
+    private static void writeEmptyDirectoryEntry(SectorOutputStream sectors) throws IOException {
+        sectors.pad(64 + 2 + 1 + 1);
+        sectors.putInt(NO_STREAM);
+        sectors.putInt(NO_STREAM);
+        sectors.putInt(NO_STREAM);
+        sectors.pad(16 + 4 + 8 + 8 + 4 + 8);
+    }
+
+    private static long sectorsFor(long bytes, int unit) {
+        return (bytes + unit - 1) / unit;
+    }
+
+    private static String checkName(String name) {
+        if (name == null || name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Compound file entry name must be 1 to 31 characters: " + name);
+        }
+
+        return name;
+    }
+
+    @FunctionalInterface
+    interface StreamContent {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    abstract static class Entry {
+        final String name;
+        int id;
+        int left = NO_STREAM;
+        int right = NO_STREAM;
+        int startSector;
+        long size;
+
+        private Entry(String name) {
+            this.name = checkName(name);
+        }
+
+        abstract byte type();
+    }
+
+    static final class Storage extends Entry {
+        private final boolean root;
+        private final List<Entry> children = new ArrayList<>();
+        private int child = NO_STREAM;
+
+        private Storage(String name, boolean root) {
+            super(name);
+            this.root = root;
+        }
+
+        Storage addStorage(String name) {
+            Storage storage = new Storage(name, false);
+            children.add(storage);
+            return storage;
+        }
+
+        void addStream(String name, byte[] data) {
+            addStream(name, data.length, out -> out.write(data));
+        }
+
+        /**
+         * Adds a stream whose content is produced on write. The content must write exactly {@code size} bytes.
+         */
+        void addStream(String name, long size, StreamContent content) {
+            if (size < 0 || size > MAX_STREAM_SIZE) {
+                throw new IllegalArgumentException("Compound file stream size out of range: " + size);
+            }
+
+            children.add(new Stream(name, size, content));
+        }
+
+        @Override
+        byte type() {
+            return root ? TYPE_ROOT : TYPE_STORAGE;
+        }
+    }
+
+    private static final class Stream extends Entry {
+        private final StreamContent content;
+
+        private Stream(String name, long size, StreamContent content) {
+            super(name);
+            this.size = size;
+            this.content = content;
+        }
+
+        @Override
+        byte type() {
+            return TYPE_STREAM;
+        }
+
+        private void writeContent(SectorOutputStream sectors) throws IOException {
+            long before = sectors.position;
+            content.writeTo(sectors);
+            long written = sectors.position - before;
+            if (written != size) {
+                throw new IOException("Compound file stream " + name + " wrote " + written + " bytes, expected " + size + ".");
+            }
+        }
+    }
+
+    /**
+     * Buffers little-endian values into whole sectors. Sector-aligned bulk writes go straight to the output.
+     * Closing it does not close the underlying stream.
+     */
+    private static final class SectorOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final ByteBuffer sector = ByteBuffer.allocate(SECTOR_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        private SectorOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            putByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (sector.position() == 0 && length >= SECTOR_SIZE) {
+                    int direct = length - length % SECTOR_SIZE;
+                    out.write(bytes, offset, direct);
+                    position += direct;
+                    offset += direct;
+                    length -= direct;
+                    continue;
+                }
+
+                int chunk = Math.min(length, sector.remaining());
+                sector.put(bytes, offset, chunk);
+                position += chunk;
+                offset += chunk;
+                length -= chunk;
+                drainIfFull();
+            }
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            write(bytes, 0, bytes.length);
+        }
+
+        private void putByte(byte value) throws IOException {
+            sector.put(value);
+            position++;
+            drainIfFull();
+        }
+
+        private void putShort(int value) throws IOException {
+            putByte((byte) value);
+            putByte((byte) (value >>> 8));
+        }
+
+        private void putInt(int value) throws IOException {
+            if (sector.remaining() < Integer.BYTES) {
+                throw new IllegalStateException("Compound file values must not straddle sectors.");
+            }
+            sector.putInt(value);
+            position += Integer.BYTES;
+            drainIfFull();
+        }
+
+        private void putLong(long value) throws IOException {
+            putInt((int) value);
+            putInt((int) (value >>> 32));
+        }
+
+        private void putChain(int start, long length) throws IOException {
+            for (long i = 0; i < length; i++) {
+                putInt(i == length - 1 ? END_OF_CHAIN : (int) (start + i + 1));
+            }
+        }
+
+        private void pad(int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+                putByte((byte) 0);
+            }
+        }
+
+        private void padTo(int unit) throws IOException {
+            while (position % unit != 0) {
+                putByte((byte) 0);
+            }
+        }
+
+        private void fillSector(int value) throws IOException {
+            while (sector.position() != 0) {
+                putInt(value);
+            }
+        }
+
+        private void drainIfFull() throws IOException {
+            if (!sector.hasRemaining()) {
+                out.write(sector.array(), 0, SECTOR_SIZE);
+                sector.clear();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            // The caller owns the output stream.
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.shings.excelmaker.xlsx.poi;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * SXSSF workbook whose package is written with the given deflate level.
+ * POI streams every entry through a single {@link ZipArchiveOutputStream}, so compression stays on the writing thread;
+ * level 0 still produces deflate entries, made of uncompressed blocks.
+ */
+public class LeveledSXSSFWorkbook extends SXSSFWorkbook {
+    private final int compressionLevel;
+
+    public LeveledSXSSFWorkbook(int compressionLevel) {
+        super();
+        setCompressTempFiles(true);
+        this.compressionLevel = compressionLevel;
+    }
+
+    public LeveledSXSSFWorkbook(XSSFWorkbook workbook, int rowAccessWindowSize, boolean compressTempFiles, boolean useSharedStringsTable,
+                                int compressionLevel) {
+        super(workbook, rowAccessWindowSize, compressTempFiles, useSharedStringsTable);
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    protected ZipArchiveOutputStream createArchiveOutputStream(OutputStream out) {
+        ZipArchiveOutputStream zip = super.createArchiveOutputStream(out);
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+            zip.setLevel(compressionLevel);
+        }
+
+        return zip;
+    }
+}
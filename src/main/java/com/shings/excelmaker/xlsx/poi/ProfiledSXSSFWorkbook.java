@@ -0,0 +1,69 @@
+package com.shings.excelmaker.xlsx.poi;
+
+import com.shings.excelmaker.xlsx.XlsxGenerationProfile;
+import org.apache.poi.xssf.model.SharedStringsTable;
+import org.apache.poi.xssf.streaming.GZIPSheetDataWriter;
+import org.apache.poi.xssf.streaming.SheetDataWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * SXSSF workbook configured from an {@link XlsxGenerationProfile}.
+ * POI only offers a JVM-wide temp file strategy, so the per-workbook temp directory is applied by overriding
+ * the sheet data writers' temp file creation.
+ */
+public final class ProfiledSXSSFWorkbook extends LeveledSXSSFWorkbook {
+    private final XlsxGenerationProfile profile;
+
+    public ProfiledSXSSFWorkbook(XlsxGenerationProfile profile, int rowAccessWindowSize, int compressionLevel) {
+        super(null, rowAccessWindowSize, profile.isCompressTempFiles(), profile.isSharedStrings(), compressionLevel);
+        this.profile = profile;
+    }
+
+    @Override
+    protected SheetDataWriter createSheetDataWriter() throws IOException {
+        if (profile.getTempDirectory() == null) {
+            return super.createSheetDataWriter();
+        }
+
+        SharedStringsTable sharedStrings = profile.isSharedStrings() ? getXSSFWorkbook().getSharedStringSource() : null;
+        if (profile.isCompressTempFiles()) {
+            return new DirectoryGzipSheetDataWriter(sharedStrings);
+        }
+
+        return new DirectorySheetDataWriter(sharedStrings);
+    }
+
+    private File createTempFile(String suffix) throws IOException {
+        Path directory = profile.getTempDirectory();
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, "poi-sxssf-sheet", suffix).toFile();
+    }
+
+    // Inner classes: the writers create their temp file from the superclass constructor, and the enclosing
+    // workbook reference is already set at that point, unlike fields of the writers themselves.
+    private final class DirectorySheetDataWriter extends SheetDataWriter {
+        private DirectorySheetDataWriter(SharedStringsTable sharedStrings) throws IOException {
+            super(sharedStrings);
+        }
+
+        @Override
+        public File createTempFile() throws IOException {
+            return ProfiledSXSSFWorkbook.this.createTempFile(".xml");
+        }
+    }
+
+    private final class DirectoryGzipSheetDataWriter extends GZIPSheetDataWriter {
+        private DirectoryGzipSheetDataWriter(SharedStringsTable sharedStrings) throws IOException {
+            super(sharedStrings);
+        }
+
+        @Override
+        public File createTempFile() throws IOException {
+            return ProfiledSXSSFWorkbook.this.createTempFile(".gz");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.shings.excelmaker.xlsx.poi;
+
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+
+/**
+ * Sizes a sheet's row-access window so the rows kept in memory stay within the memory budget.
+ * The per-row cost is re-estimated from the cells actually written, so wide rows shrink the window.
+ */
+public final class RowWindowTuner {
+    // Rough estimates of the heap cost of an SXSSF row and of a cell holding a short value.
+    private static final long ROW_BYTES = 80;
+    private static final long CELL_BYTES = 120;
+    private static final int DEFAULT_COLUMNS = 8;
+    private static final int MIN_WINDOW = 16;
+    private static final int MAX_WINDOW = 100_000;
+    private static final int RETUNE_INTERVAL = 1024;
+
+    private final SXSSFSheet sheet;
+    private final long memoryBudgetBytes;
+    private int window;
+    private long rows;
+    private long cells;
+
+    public RowWindowTuner(SXSSFSheet sheet, long memoryBudgetBytes, int expectedColumns) {
+        this.sheet = sheet;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.window = windowFor(memoryBudgetBytes, expectedColumns);
+        sheet.setRandomAccessWindowSize(window);
+    }
+
+    public static int windowFor(long memoryBudgetBytes, double columns) {
+        double effectiveColumns = columns > 0 ? columns : DEFAULT_COLUMNS;
+        long window = (long) (memoryBudgetBytes / (ROW_BYTES + effectiveColumns * CELL_BYTES));
+        return (int) Math.max(MIN_WINDOW, Math.min(MAX_WINDOW, window));
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void onRow(int cellCount) {
+        rows++;
+        cells += cellCount;
+        if (rows % RETUNE_INTERVAL != 0) {
+            return;
+        }
+
+        int tuned = windowFor(memoryBudgetBytes, (double) cells / rows);
+        // Only retune on a meaningful change; small swings are not worth a flush.
+        if (tuned < window * 0.8 || tuned > window * 1.25) {
+            window = tuned;
+            sheet.setRandomAccessWindowSize(window);
+        }
+    }
+}
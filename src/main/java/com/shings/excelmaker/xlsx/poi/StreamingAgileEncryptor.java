@@ -0,0 +1,89 @@
+package com.shings.excelmaker.xlsx.poi;
+
+import com.shings.excelmaker.util.CountingOutputStream;
+import org.apache.poi.poifs.crypt.EncryptionInfo;
+import org.apache.poi.poifs.crypt.EncryptionMode;
+import org.apache.poi.poifs.crypt.Encryptor;
+import org.apache.poi.poifs.crypt.agile.AgileEncryptor;
+import org.apache.poi.poifs.filesystem.DirectoryEntry;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.Entry;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+
+/**
+ * Agile-encrypts a workbook without building the encrypted package inside a POIFS.
+ * The cipher text is staged in a plain temp file, and the compound file is written around it in one pass, so the
+ * package is never block-mapped or held in heap and crosses the disk once on each side.
+ */
+public final class StreamingAgileEncryptor extends AgileEncryptor {
+    private static final String ENCRYPTED_PACKAGE = "EncryptedPackage";
+
+    private StreamingAgileEncryptor() {
+    }
+
+    public static void encrypt(SXSSFWorkbook workbook,
+                               String password,
+                               Path stagingFile,
+                               OutputStream out) throws IOException, GeneralSecurityException {
+        EncryptionInfo info = new EncryptionInfo(EncryptionMode.agile);
+        StreamingAgileEncryptor encryptor = new StreamingAgileEncryptor();
+        encryptor.setEncryptionInfo(info);
+        info.setEncryptor(encryptor);
+        encryptor.confirmPassword(password);
+        encryptor.write(workbook, stagingFile, out);
+    }
+
+    private void write(SXSSFWorkbook workbook, Path stagingFile, OutputStream out)
+            throws IOException, GeneralSecurityException {
+        // Stream mode (offset 0) writes the same 4096-byte cipher chunks as the POIFS-backed stream.
+        Encryptor streamEncryptor = this;
+        long plainSize;
+        try (CountingOutputStream plain = new CountingOutputStream(
+                streamEncryptor.getDataStream(Files.newOutputStream(stagingFile), 0))) {
+            workbook.write(plain);
+            plainSize = plain.getCount();
+        }
+
+        if (plainSize > Integer.MAX_VALUE) {
+            throw new IOException("Encrypted workbooks are limited to 2 GB, got " + plainSize + " bytes.");
+        }
+
+        updateIntegrityHMAC(stagingFile.toFile(), (int) plainSize);
+
+        CompoundFileWriter compoundFile = new CompoundFileWriter();
+        try (POIFSFileSystem descriptors = new POIFSFileSystem()) {
+            createEncryptionInfoEntry(descriptors.getRoot(), stagingFile.toFile());
+            copyEntries(descriptors.getRoot(), compoundFile.root());
+        }
+
+        long encryptedSize = Files.size(stagingFile);
+        compoundFile.root().addStream(ENCRYPTED_PACKAGE, Long.BYTES + encryptedSize, target -> {
+            target.write(ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(plainSize).array());
+            Files.copy(stagingFile, target);
+        });
+        compoundFile.write(out);
+    }
+
+    private static void copyEntries(DirectoryEntry source, CompoundFileWriter.Storage target) throws IOException {
+        for (Entry entry : source) {
+            if (entry instanceof DirectoryEntry) {
+                copyEntries((DirectoryEntry) entry, target.addStorage(entry.getName()));
+            } else if (entry instanceof DocumentEntry) {
+                try (InputStream in = new DocumentInputStream((DocumentEntry) entry)) {
+                    target.addStream(entry.getName(), in.readAllBytes());
+                }
+            }
+        }
+    }
+}
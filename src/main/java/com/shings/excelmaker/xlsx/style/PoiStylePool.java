@@ -0,0 +1,81 @@
+package com.shings.excelmaker.xlsx.style;
+
+import com.shings.excelmaker.xlsx.XlsxSheetCell;
+import com.shings.excelmaker.xlsx.XlsxStyleStats;
+import com.shings.excelmaker.util.ExcelDateUtils;
+import com.shings.excelmaker.xlsx.attribute.XlsxColor;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class PoiStylePool {
+    private final Workbook workbook;
+    private final StyleRegistry<CellStyle> styles = new StyleRegistry<>();
+    private final Map<XlsxColor, Font> headerFonts = new HashMap<>();
+
+    public PoiStylePool(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    public CellStyle headerStyle(XlsxSheetCell cell) {
+        return styles.get(XlsxStyleKey.of(cell), this::createStyle);
+    }
+
+    public CellStyle dateStyle() {
+        return styles.get(XlsxStyleKey.ofDataFormat(ExcelDateUtils.BUILTIN_DATE_FORMAT), this::createStyle);
+    }
+
+    public CellStyle dateTimeStyle() {
+        return styles.get(XlsxStyleKey.ofDataFormat(ExcelDateUtils.BUILTIN_DATE_TIME_FORMAT), this::createStyle);
+    }
+
+    public XlsxStyleStats stats() {
+        return styles.toStats(headerFonts.size());
+    }
+
+    private CellStyle createStyle(XlsxStyleKey key) {
+        CellStyle style = workbook.createCellStyle();
+        if (key.isHeader()) {
+            style.setFont(headerFonts.computeIfAbsent(key.getFontColor(), this::createHeaderFont));
+        }
+
+        if (key.getDataFormat() != 0) {
+            style.setDataFormat((short) key.getDataFormat());
+        }
+
+        if (key.getBackgroundColor() != null) {
+            style.setFillForegroundColor(key.getBackgroundColor().toPoiColorIndex());
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        }
+
+        if (key.getHorizontalAlignment() != null) {
+            style.setAlignment(key.getHorizontalAlignment().toPoiAlignment());
+        }
+
+        if (key.getBorder() != null) {
+            BorderStyle border = key.getBorder().toPoiBorder();
+            style.setBorderTop(border);
+            style.setBorderBottom(border);
+            style.setBorderLeft(border);
+            style.setBorderRight(border);
+        }
+
+        return style;
+    }
+
+    private Font createHeaderFont(XlsxColor fontColor) {
+        Font font = workbook.createFont();
+        font.setBold(true);
+
+        if (fontColor != null) {
+            font.setColor(fontColor.toPoiColorIndex());
+        }
+
+        return font;
+    }
+}
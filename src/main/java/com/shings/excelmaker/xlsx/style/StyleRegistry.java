@@ -0,0 +1,34 @@
+package com.shings.excelmaker.xlsx.style;
+
+import com.shings.excelmaker.xlsx.XlsxStyleStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+public final class StyleRegistry<S> {
+    private final Map<XlsxStyleKey, S> styles = new HashMap<>();
+    private long hitCount;
+    private long missCount;
+
+    public S get(XlsxStyleKey key, Function<XlsxStyleKey, S> factory) {
+        S style = styles.get(key);
+        if (style != null) {
+            hitCount++;
+            return style;
+        }
+
+        missCount++;
+        style = factory.apply(key);
+        styles.put(key, style);
+        return style;
+    }
+
+    public int size() {
+        return styles.size();
+    }
+
+    public XlsxStyleStats toStats(int fontCount) {
+        return new XlsxStyleStats(styles.size(), fontCount, hitCount, missCount);
+    }
+}
@@ -0,0 +1,87 @@
+package com.shings.excelmaker.xlsx.style;
+
+import com.shings.excelmaker.xlsx.XlsxSheetCell;
+import com.shings.excelmaker.xlsx.attribute.XlsxBorder;
+import com.shings.excelmaker.xlsx.attribute.XlsxColor;
+import com.shings.excelmaker.xlsx.attribute.XlsxTextAlign;
+
+import java.util.Objects;
+
+public final class XlsxStyleKey {
+    private final boolean header;
+    private final int dataFormat;
+    private final XlsxColor fontColor;
+    private final XlsxColor backgroundColor;
+    private final XlsxTextAlign horizontalAlignment;
+    private final XlsxBorder border;
+
+    private XlsxStyleKey(boolean header,
+                         int dataFormat,
+                         XlsxColor fontColor,
+                         XlsxColor backgroundColor,
+                         XlsxTextAlign horizontalAlignment,
+                         XlsxBorder border) {
+        this.header = header;
+        this.dataFormat = dataFormat;
+        this.fontColor = fontColor;
+        this.backgroundColor = backgroundColor;
+        this.horizontalAlignment = horizontalAlignment;
+        this.border = border;
+    }
+
+    public static XlsxStyleKey of(XlsxSheetCell cell) {
+        return new XlsxStyleKey(true, 0, cell.getFontColor(), cell.getBackgroundColor(), cell.getHorizontalAlignment(), cell.getBorder());
+    }
+
+    public static XlsxStyleKey ofDataFormat(int builtinDataFormat) {
+        return new XlsxStyleKey(false, builtinDataFormat, null, null, null, null);
+    }
+
+    public boolean isHeader() {
+        return header;
+    }
+
+    public int getDataFormat() {
+        return dataFormat;
+    }
+
+    public XlsxColor getFontColor() {
+        return fontColor;
+    }
+
+    public XlsxColor getBackgroundColor() {
+        return backgroundColor;
+    }
+
+    public XlsxTextAlign getHorizontalAlignment() {
+        return horizontalAlignment;
+    }
+
+    public XlsxBorder getBorder() {
+        return border;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof XlsxStyleKey)) {
+            return false;
+        }
+
+        XlsxStyleKey that = (XlsxStyleKey) o;
+        return header == that.header
+                && dataFormat == that.dataFormat
+                && fontColor == that.fontColor
+                && backgroundColor == that.backgroundColor
+                && horizontalAlignment == that.horizontalAlignment
+                && border == that.border;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(header, dataFormat, fontColor, backgroundColor, horizontalAlignment, border);
+    }
+}
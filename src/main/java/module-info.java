@@ -1,7 +1,18 @@
 module com.shings.excelmaker {
     requires org.apache.poi.ooxml;
+    requires org.apache.commons.compress;
+    requires java.sql;
+    requires jdk.jfr;
     exports com.shings.excelmaker;
+    exports com.shings.excelmaker.batch;
     exports com.shings.excelmaker.exception;
+    exports com.shings.excelmaker.io;
+    exports com.shings.excelmaker.jdbc;
+    exports com.shings.excelmaker.mapping;
+    exports com.shings.excelmaker.metrics;
+    exports com.shings.excelmaker.progress;
+    exports com.shings.excelmaker.row;
+    exports com.shings.excelmaker.table;
     exports com.shings.excelmaker.xlsx;
     exports com.shings.excelmaker.xlsx.attribute;
 }
@@ -1,17 +1,60 @@
 package com.shings.excelmaker;
 
 import com.shings.excelmaker.exception.CsvException;
+import com.shings.excelmaker.io.CompressionOptions;
+import com.shings.excelmaker.io.FileForcePolicy;
+import com.shings.excelmaker.io.FileOutputOptions;
+import com.shings.excelmaker.jdbc.ResultSetSource;
+import com.shings.excelmaker.mapping.ExcelColumn;
+import com.shings.excelmaker.metrics.GenerationEvent;
+import com.shings.excelmaker.metrics.GenerationPhase;
+import com.shings.excelmaker.progress.CancellationToken;
+import com.shings.excelmaker.progress.ExportProgress;
+import com.shings.excelmaker.table.Table;
+import com.shings.excelmaker.util.ProgressTracker;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -402,4 +445,835 @@ class CsvMakerTest {
 
         assertEquals(expected, csv);
     }
+
+    @Test
+    void builder_rowSource_nullIterator_throwsException() {
+        CsvMaker.Builder builder = CsvMaker.builder("test.csv");
+
+        assertThrows(CsvException.class, () -> builder.rowSource((Iterator<List<String>>) null));
+    }
+
+    @Test
+    void toBytes_withRowSource_writesSourceRowsAfterRows() {
+        CsvMaker maker = CsvMaker.builder("source.csv")
+                .row(List.of("id", "name"))
+                .rowSource(List.of(List.of("1", "Alice"), List.of("2", "Bob")).iterator())
+                .lineSeparator("\n")
+                .build();
+
+        String csv = new String(maker.toBytes(), StandardCharsets.UTF_8);
+
+        assertTrue(maker.hasRowSource());
+        assertEquals("id,name\n1,Alice\n2,Bob\n", csv);
+    }
+
+    @Test
+    void toBytes_withRowSourceContainingNullRows_skipsThem() {
+        CsvMaker maker = CsvMaker.builder("source.csv")
+                .rowSource(Arrays.asList(List.of("1", "Alice"), null, List.of("2", "Bob"), null).iterator())
+                .lineSeparator("\n")
+                .build();
+
+        assertEquals("1,Alice\n2,Bob\n", new String(maker.toBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void toBytes_withStreamRowSource_consumesLazilyAndClosesStream() {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Stream<List<String>> stream = IntStream.range(0, 3)
+                .mapToObj(i -> List.of("R" + i))
+                .onClose(() -> closed.set(true));
+
+        CsvMaker maker = CsvMaker.builder("stream.csv")
+                .rowSource(stream)
+                .lineSeparator("\n")
+                .build();
+
+        assertFalse(closed.get());
+
+        String csv = new String(maker.toBytes(), StandardCharsets.UTF_8);
+
+        assertEquals("R0\nR1\nR2\n", csv);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void toBytes_withRowSource_secondGenerationThrowsException() {
+        CsvMaker maker = CsvMaker.builder("once.csv")
+                .rowSource(List.of(List.of("A")).spliterator())
+                .build();
+
+        maker.toBytes();
+
+        assertThrows(CsvException.class, maker::toBytes);
+    }
+
+    @Test
+    void toBytes_withTable_writesHeaderAndTypedColumns() {
+        Table table = Table.builder()
+                .intColumn("id", new int[]{1, 2, 3})
+                .doubleColumn("score", new double[]{1.5, 2.0, -0.25})
+                .booleanColumn("active", new boolean[]{true, false, true})
+                .stringColumn("status", Arrays.asList("ON", null, "a,b"))
+                .build();
+
+        CsvMaker maker = CsvMaker.builder("table.csv")
+                .table(table)
+                .lineSeparator("\n")
+                .build();
+
+        String csv = new String(maker.toBytes(), StandardCharsets.UTF_8);
+
+        String expected =
+                """
+                        id,score,active,status
+                        1,1.5,true,ON
+                        2,2.0,false,
+                        3,-0.25,true,"a,b"
+                        """;
+
+        assertEquals(expected, csv);
+        assertEquals(csv, new String(maker.toBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void builder_table_mismatchedColumnLengths_throwsException() {
+        Table.Builder builder = Table.builder()
+                .longColumn("a", new long[]{1L, 2L});
+
+        assertThrows(IllegalArgumentException.class, () -> builder.intColumn("b", new int[]{1}));
+    }
+
+    @Test
+    void toBytes_withObjects_writesAnnotatedColumnsInOrder() {
+        List<Order> orders = List.of(
+                new Order(1L, "Alice", 1.5, true, LocalDate.of(2025, 1, 2), Status.PAID, "ignored"),
+                new Order(2L, null, -0.25, false, null, null, "ignored"));
+
+        CsvMaker maker = CsvMaker.builder("orders.csv")
+                .objects(Order.class, orders)
+                .lineSeparator("\n")
+                .build();
+
+        String csv = new String(maker.toBytes(), StandardCharsets.UTF_8);
+
+        String expected =
+                """
+                        Order ID,customer,amount,paid,date,status
+                        1,Alice,1.5,true,2025-01-02,PAID
+                        2,,-0.25,false,,
+                        """;
+
+        assertEquals(expected, csv);
+        assertEquals(csv, new String(maker.toBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void toBytes_withObjectSource_readsPrivateTypesOnce() {
+        CsvMaker maker = CsvMaker.builder("accounts.csv")
+                .objectSource(Account.class, Stream.of(new Account("a-1", 10), new Account("a-2", 20)))
+                .lineSeparator("\n")
+                .build();
+
+        assertTrue(maker.hasRowSource());
+        assertEquals("balance,name\n10,a-1\n20,a-2\n", new String(maker.toBytes(), StandardCharsets.UTF_8));
+        assertThrows(CsvException.class, maker::toBytes);
+    }
+
+    @Test
+    void builder_objects_withoutAnnotatedColumns_throwsException() {
+        CsvMaker.Builder builder = CsvMaker.builder("objects.csv");
+
+        assertThrows(CsvException.class, () -> builder.objects(String.class, List.of("a")));
+        assertThrows(CsvException.class, () -> builder.objectSource(String.class, Stream.of("a")));
+        assertThrows(CsvException.class, () -> CsvMaker.builder("objects.csv")
+                .objects(Account.class, Arrays.asList(new Account("a-1", 1), null))
+                .build()
+                .toBytes());
+    }
+
+    @Test
+    void toBytes_withResultSet_writesLabelsAndTypedColumns() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:csv_result_set");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE orders (id BIGINT, customer VARCHAR(20), amount DECIMAL(10, 2), paid BOOLEAN, ordered DATE, total DECIMAL(30, 10))");
+            statement.execute("INSERT INTO orders VALUES (1, 'Alice', 12.50, TRUE, DATE '2025-01-02', 12345678901234567890.0123456789), "
+                    + "(2, 'a,b', NULL, FALSE, NULL, NULL)");
+
+            ResultSet resultSet = statement.executeQuery("SELECT id AS order_id, customer, amount, paid, ordered, total FROM orders ORDER BY id");
+            ResultSetSource source = ResultSetSource.of(resultSet, 500);
+            CsvMaker maker = CsvMaker.builder("orders.csv")
+                    .resultSet(source)
+                    .lineSeparator("\n")
+                    .build();
+
+            String expected =
+                    """
+                            ORDER_ID,CUSTOMER,AMOUNT,PAID,ORDERED,TOTAL
+                            1,Alice,12.5,true,2025-01-02,12345678901234567890.0123456789
+                            2,"a,b",,false,,
+                            """;
+
+            assertTrue(maker.hasRowSource());
+            assertFalse(source.isConsumed());
+            assertEquals(expected, new String(maker.toBytes(), StandardCharsets.UTF_8));
+            assertTrue(resultSet.isClosed());
+            assertThrows(CsvException.class, maker::toBytes);
+            assertThrows(IllegalStateException.class, source::rows);
+        }
+    }
+
+    @Test
+    void builder_resultSet_invalidArguments_throwsException() {
+        assertThrows(CsvException.class, () -> CsvMaker.builder("orders.csv").resultSet(null));
+        assertThrows(IllegalArgumentException.class, () -> ResultSetSource.of(null));
+    }
+
+    @Test
+    void resultSet_builtButNeverGenerated_leavesSourceUntaken() throws SQLException {
+        ResultSet resultSet = singleColumnResultSet();
+        ResultSetSource source = ResultSetSource.of(resultSet);
+
+        CsvMaker.builder("orders.csv").resultSet(source).build();
+
+        assertFalse(source.isConsumed());
+        source.rows().close();
+        assertThrows(CsvException.class, () -> CsvMaker.builder("orders.csv").resultSet(source));
+    }
+
+    private static ResultSet singleColumnResultSet() {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                CsvMakerTest.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> 1;
+                    case "getColumnLabel" -> "ID";
+                    case "getColumnType" -> Types.VARCHAR;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        return (ResultSet) Proxy.newProxyInstance(
+                CsvMakerTest.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getMetaData" -> metaData;
+                    case "setFetchSize", "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void csvReader_readsCsvMakerOutputBack() {
+        List<List<String>> rows = List.of(
+                List.of("1", "plain", "한글"),
+                List.of("-42", "semi;colon", "say \"hi\""),
+                List.of("9223372036854775807", "multi\r\nline", ""));
+        Path file = tempDir.resolve("round-trip.csv");
+        CsvMaker.builder("round-trip.csv")
+                .row(List.of("id", "text", "note"))
+                .rows(rows)
+                .delimiter(';')
+                .lineSeparator("\r\n")
+                .build()
+                .toPath(file);
+
+        try (CsvReader reader = CsvReader.builder(file).delimiter(';').header(true).build()) {
+            assertEquals(List.of("id", "text", "note"), reader.getHeader());
+
+            CsvReader.Cursor cursor = reader.cursor();
+            for (List<String> row : rows) {
+                assertTrue(cursor.next());
+                assertEquals(row, cursor.toList());
+                assertEquals(Long.parseLong(row.get(0)), cursor.getLong(0));
+            }
+            assertTrue(cursor.isEmpty(2));
+            assertThrows(CsvException.class, () -> cursor.getLong(1));
+            assertFalse(cursor.next());
+        }
+    }
+
+    @Test
+    void csvReader_split_matchesSequentialReadAcrossMappedWindows() throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            rows.add(List.of(String.valueOf(i), i % 7 == 0 ? "quoted\n\"line\"\n" + i : "cell" + i, i % 5 == 0 ? "" : "§"));
+        }
+        Path file = tempDir.resolve("split.csv");
+        Files.write(file, CsvMaker.builder("split.csv").rows(rows).delimiter('§').lineSeparator("\n").build().toBytes());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (CsvReader reader = CsvReader.builder(file).delimiter('§').mapSize(128).build()) {
+            assertEquals(rows, readAll(reader.cursor()));
+
+            List<CsvReader.Cursor> cursors = reader.split(pool, 7);
+            assertTrue(cursors.size() > 1);
+            List<ForkJoinTask<List<List<String>>>> parts = new ArrayList<>();
+            for (CsvReader.Cursor cursor : cursors) {
+                parts.add(pool.submit(() -> readAll(cursor)));
+            }
+
+            List<List<String>> parallel = new ArrayList<>();
+            for (ForkJoinTask<List<List<String>>> part : parts) {
+                parallel.addAll(part.join());
+            }
+            assertEquals(rows, parallel);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void csvReader_malformedInput_throwsException() throws IOException {
+        Path unterminated = Files.writeString(tempDir.resolve("unterminated.csv"), "a,\"b\nc\n");
+        try (CsvReader reader = CsvReader.builder(unterminated).build()) {
+            assertThrows(CsvException.class, () -> reader.cursor().next());
+        }
+
+        Path wide = Files.writeString(tempDir.resolve("wide.csv"), "a,b\n" + "x".repeat(100) + "\n");
+        try (CsvReader reader = CsvReader.builder(wide).mapSize(16).build()) {
+            CsvReader.Cursor cursor = reader.cursor();
+            assertTrue(cursor.next());
+            assertThrows(CsvException.class, cursor::next);
+        }
+
+        assertThrows(CsvException.class, () -> CsvReader.builder(wide).mapSize(0));
+        assertThrows(CsvException.class, () -> CsvReader.builder(tempDir.resolve("missing.csv")).build());
+    }
+
+    @Test
+    void toBytes_withParallelEncoding_matchesSequentialOutput() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Table table = Table.builder()
+                    .longColumn("id", new long[]{1L, 2L, 3L, 4L, 5L})
+                    .stringColumn("memo", Arrays.asList("a", "b,c", null, "say \"hi\"", "multi\nline"))
+                    .build();
+
+            List<List<String>> sourceRows = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                sourceRows.add(List.of("row" + i, "값" + i));
+            }
+
+            CsvMaker sequential = CsvMaker.builder("sequential.csv")
+                    .row(List.of("header1", "header2"))
+                    .table(table)
+                    .rowSource(sourceRows.iterator())
+                    .lineSeparator("\n")
+                    .build();
+
+            CsvMaker parallel = CsvMaker.builder("parallel.csv")
+                    .row(List.of("header1", "header2"))
+                    .table(table)
+                    .rowSource(sourceRows.iterator())
+                    .lineSeparator("\n")
+                    .parallelEncoding(pool, 3, 2)
+                    .build();
+
+            assertArrayEquals(sequential.toBytes(), parallel.toBytes());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void builder_parallelEncoding_invalidArguments_throwsException() {
+        CsvMaker.Builder builder = CsvMaker.builder("parallel.csv");
+
+        assertThrows(CsvException.class, () -> builder.parallelEncoding(null));
+        assertThrows(CsvException.class, () -> builder.parallelEncoding(ForkJoinPool.commonPool(), 0, 1));
+        assertThrows(CsvException.class, () -> builder.parallelEncoding(ForkJoinPool.commonPool(), 1, 0));
+    }
+
+    @Test
+    void toBytes_encodesMultiByteTextAndNonAsciiDelimiter() {
+        CsvMaker maker = CsvMaker.builder("encoding.csv")
+                .row(List.of("한글", "a；b", "emoji \uD83D\uDE00", "say \"hi\""))
+                .delimiter('；')
+                .lineSeparator("\n")
+                .build();
+
+        String csv = new String(maker.toBytes(), StandardCharsets.UTF_8);
+
+        assertEquals("한글；\"a；b\"；emoji \uD83D\uDE00；\"say \"\"hi\"\"\"\n", csv);
+    }
+
+    @Test
+    void toBytes_withCellLargerThanBuffer_writesWholeCell() {
+        String large = "x".repeat(200_000) + ",";
+
+        CsvMaker maker = CsvMaker.builder("large.csv")
+                .row(List.of("before", large, "after"))
+                .lineSeparator("\n")
+                .build();
+
+        String csv = new String(maker.toBytes(), StandardCharsets.UTF_8);
+
+        assertEquals("before,\"" + large + "\",after\n", csv);
+    }
+
+    @Test
+    void toPath_withFileOutputOptions_truncatesPreallocatedFileToContent() throws IOException {
+        Path target = tempDir.resolve("options.csv");
+        Files.write(target, new byte[10_000]);
+
+        CsvMaker maker = CsvMaker.builder("options.csv")
+                .rows(List.of(List.of("a", "b"), List.of("c", "d")))
+                .lineSeparator("\n")
+                .build();
+
+        FileOutputOptions options = FileOutputOptions.builder()
+                .bufferSize(4)
+                .preallocate(1024 * 1024)
+                .forcePolicy(FileForcePolicy.CONTENT)
+                .build();
+        maker.toPath(target, options);
+
+        assertEquals("a,b\nc,d\n", Files.readString(target, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void toPath_withNullFileOutputOptions_throwsException() {
+        CsvMaker maker = CsvMaker.builder("options.csv").build();
+
+        assertThrows(CsvException.class, () -> maker.toPath(tempDir.resolve("options.csv"), null));
+    }
+
+    @Test
+    void toByteSegments_and_toByteBuffer_matchToBytes() throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            rows.add(List.of("row" + i, "value" + i));
+        }
+
+        CsvMaker maker = CsvMaker.builder("segments.csv")
+                .rows(rows)
+                .build();
+
+        byte[] expected = maker.toBytes();
+
+        ByteSegments segments = maker.toByteSegments();
+        assertEquals(expected.length, segments.size());
+        assertTrue(segments.asByteBuffers().size() > 1);
+        ByteArrayOutputStream copied = new ByteArrayOutputStream();
+        segments.writeTo(copied);
+        assertArrayEquals(expected, copied.toByteArray());
+
+        ByteBuffer exact = maker.toByteBuffer(expected.length);
+        assertEquals(expected.length, exact.remaining());
+        assertArrayEquals(expected, exact.array());
+
+        ByteBuffer grown = maker.toByteBuffer(16);
+        byte[] grownBytes = new byte[grown.remaining()];
+        grown.get(grownBytes);
+        assertArrayEquals(expected, grownBytes);
+    }
+
+    @Test
+    void toByteBuffer_invalidSizeHint_throwsException() {
+        CsvMaker maker = CsvMaker.builder("segments.csv").build();
+
+        assertThrows(CsvException.class, () -> maker.toByteBuffer(0));
+    }
+
+    @Test
+    void toBytesAsync_and_toPathAsync_produceSameContent() throws IOException {
+        CsvMaker maker = CsvMaker.builder("async.csv")
+                .rows(List.of(List.of("a", "b"), List.of("c", "d")))
+                .build();
+
+        byte[] expected = maker.toBytes();
+        assertArrayEquals(expected, maker.toBytesAsync().join());
+
+        Path target = tempDir.resolve("async.csv");
+        maker.toPathAsync(target).join();
+        assertArrayEquals(expected, Files.readAllBytes(target));
+    }
+
+    @Test
+    void toBytesAsync_failure_completesExceptionally() {
+        CsvMaker maker = CsvMaker.builder("async.csv")
+                .rowSource(List.of(List.of("a")).iterator())
+                .build();
+
+        maker.toBytesAsync().join();
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> maker.toBytesAsync().join());
+        assertInstanceOf(CsvException.class, exception.getCause());
+    }
+
+    @Test
+    void toBytesAsync_nullExecutor_throwsException() {
+        CsvMaker maker = CsvMaker.builder("async.csv").build();
+
+        assertThrows(CsvException.class, () -> maker.toBytesAsync(null));
+    }
+
+    @Test
+    void toPublisher_emitsChunksOnDemandAndCompletes() throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            rows.add(List.of("row" + i, "value" + i));
+        }
+
+        CsvMaker maker = CsvMaker.builder("publisher.csv")
+                .rows(rows)
+                .build();
+
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        maker.toPublisher(ForkJoinPool.commonPool(), 1024).subscribe(subscriber);
+
+        subscriber.done.join();
+        assertArrayEquals(maker.toBytes(), subscriber.bytes.toByteArray());
+        assertTrue(subscriber.chunks > 1);
+    }
+
+    @Test
+    void toPublisher_cancel_stopsGeneration() throws InterruptedException {
+        AtomicBoolean closed = new AtomicBoolean();
+        CsvMaker maker = CsvMaker.builder("publisher.csv")
+                .rowSource(IntStream.range(0, 1_000_000).mapToObj(i -> List.of("row" + i)).onClose(() -> closed.set(true)))
+                .build();
+
+        CollectingSubscriber subscriber = new CollectingSubscriber(1) {
+            @Override
+            public void onNext(ByteBuffer item) {
+                super.onNext(item);
+                subscription.cancel();
+                done.complete(null);
+            }
+        };
+        maker.toPublisher(ForkJoinPool.commonPool(), 1024).subscribe(subscriber);
+
+        subscriber.done.join();
+        for (int i = 0; i < 500 && !closed.get(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(closed.get());
+        assertEquals(1, subscriber.chunks);
+    }
+
+    @Test
+    void toPublisher_cancelBeforeFirstChunk_stopsRendererWithinCheckInterval() throws InterruptedException {
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicReference<Flow.Subscription> subscriptionRef = new AtomicReference<>();
+        int cancelAt = 10;
+        CsvMaker maker = CsvMaker.builder("publisher.csv")
+                .rowSource(IntStream.range(0, 1_000_000)
+                        .mapToObj(i -> {
+                            if (pulled.incrementAndGet() == cancelAt) {
+                                subscriptionRef.get().cancel();
+                            }
+                            return List.of("row" + i);
+                        })
+                        .onClose(() -> closed.set(true)))
+                .build();
+
+        // The chunk is far larger than the rows pulled before the cancellation check, so no chunk is ever emitted.
+        maker.toPublisher(ForkJoinPool.commonPool(), 16 * 1024 * 1024).subscribe(new CollectingSubscriber(1) {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscriptionRef.set(s);
+                super.onSubscribe(s);
+            }
+        });
+
+        for (int i = 0; i < 500 && !closed.get(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(closed.get());
+        assertTrue(pulled.get() <= cancelAt + ProgressTracker.CHECK_INTERVAL_ROWS, "pulled " + pulled.get() + " rows");
+    }
+
+    @Test
+    void toPublisher_stalledSubscribersBeyondCpuCount_doNotBlockAsyncExports() {
+        List<List<String>> rows = IntStream.range(0, 100_000)
+                .mapToObj(i -> List.of("row" + i))
+                .toList();
+        CsvMaker maker = CsvMaker.builder("stalled.csv").rows(rows).build();
+
+        // Each subscriber takes one chunk and never asks for more, which parks its generating thread.
+        List<CollectingSubscriber> stalled = new ArrayList<>();
+        int subscribers = Runtime.getRuntime().availableProcessors() + 2;
+        for (int i = 0; i < subscribers; i++) {
+            CollectingSubscriber subscriber = new CollectingSubscriber(1) {
+                @Override
+                public void onNext(ByteBuffer item) {
+                    chunks++;
+                }
+            };
+            maker.toPublisher().subscribe(subscriber);
+            stalled.add(subscriber);
+        }
+
+        assertArrayEquals(maker.toBytes(), maker.toBytesAsync().orTimeout(10, TimeUnit.SECONDS).join());
+        stalled.forEach(subscriber -> subscriber.subscription.cancel());
+    }
+
+    @Test
+    void toPublisher_secondSubscriber_receivesError() {
+        Flow.Publisher<ByteBuffer> publisher = CsvMaker.builder("publisher.csv").build().toPublisher();
+
+        publisher.subscribe(new CollectingSubscriber(1));
+        CollectingSubscriber second = new CollectingSubscriber(1);
+        publisher.subscribe(second);
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> second.done.join());
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void toBytes_withGzip_producesGzipOfPlainCsv() throws IOException {
+        List<List<String>> rows = IntStream.range(0, 100_000)
+                .mapToObj(i -> List.of("row" + i, i % 2 == 0 ? "ACTIVE" : "INACTIVE"))
+                .toList();
+        byte[] plain = CsvMaker.builder("plain.csv").rows(rows).build().toBytes();
+
+        CsvMaker gzip = CsvMaker.builder("plain.csv").rows(rows).gzip().build();
+        byte[] compressed = gzip.toBytes();
+
+        assertTrue(gzip.isGzip());
+        assertTrue(compressed.length < plain.length);
+        assertArrayEquals(plain, new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes());
+        assertTrue(gzip.toTempFile().getName().endsWith(".csv.gz"));
+    }
+
+    @Test
+    void toBytes_withParallelGzip_matchesContentForEveryLevel() throws IOException {
+        List<List<String>> rows = IntStream.range(0, 200_000)
+                .mapToObj(i -> List.of("row" + i, "value" + (i % 97)))
+                .toList();
+        byte[] plain = CsvMaker.builder("plain.csv").rows(rows).build().toBytes();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int level : new int[]{CompressionOptions.STORED, CompressionOptions.BEST_SPEED, CompressionOptions.DEFAULT_LEVEL}) {
+                CompressionOptions options = CompressionOptions.builder()
+                        .level(level)
+                        .parallel(executor)
+                        .blockSize(64 * 1024)
+                        .build();
+                byte[] compressed = CsvMaker.builder("plain.csv").rows(rows).gzip(options).build().toBytes();
+
+                assertArrayEquals(plain, new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void compressionOptions_validation() {
+        assertThrows(CsvException.class, () -> CsvMaker.builder("plain.csv").gzip(null));
+        assertThrows(IllegalArgumentException.class, () -> CompressionOptions.builder().level(10));
+        assertThrows(IllegalArgumentException.class, () -> CompressionOptions.builder().blockSize(1024));
+        assertThrows(IllegalArgumentException.class, () -> CompressionOptions.builder().parallel(null));
+        assertTrue(CompressionOptions.stored().isStored());
+    }
+
+    @Test
+    void generationListener_reportsBuildRenderAndOutputTotals() {
+        List<List<String>> rows = IntStream.range(0, 20_000)
+                .mapToObj(i -> List.of(String.valueOf(i), "name" + i, "x"))
+                .toList();
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            List<GenerationEvent> events = new ArrayList<>();
+            CsvMaker.Builder builder = CsvMaker.builder("events.csv")
+                    .row(List.of("id", "name", "flag"))
+                    .rowSource(rows.stream())
+                    .generationListener(events::add);
+            if (parallel) {
+                builder.parallelEncoding(ForkJoinPool.commonPool(), 1024, 4);
+            }
+
+            byte[] bytes = builder.build().toBytes();
+
+            assertEquals(List.of(GenerationPhase.BUILD, GenerationPhase.RENDER, GenerationPhase.OUTPUT),
+                    events.stream().map(GenerationEvent::getPhase).toList());
+            GenerationEvent render = events.get(1);
+            assertEquals(20_001, render.getRows());
+            assertEquals(60_003, render.getCells());
+            assertEquals(bytes.length, render.getBytes());
+
+            GenerationEvent output = events.get(2);
+            assertEquals("events.csv", output.getFileName());
+            assertEquals(20_001, output.getRows());
+            assertEquals(60_003, output.getCells());
+            assertEquals(bytes.length, output.getBytes());
+            assertTrue(output.getDurationNanos() >= render.getDurationNanos());
+        }
+    }
+
+    @Test
+    void generationListener_withGzip_reportsCompressedOutputBytes() throws IOException {
+        List<GenerationEvent> events = new ArrayList<>();
+        Path target = tempDir.resolve("events.csv.gz");
+        CsvMaker.builder("events.csv.gz")
+                .rows(IntStream.range(0, 5_000).mapToObj(i -> List.of("row", String.valueOf(i))).toList())
+                .gzip()
+                .generationListener(events::add)
+                .build()
+                .toPath(target);
+
+        GenerationEvent render = events.get(1);
+        GenerationEvent output = events.get(2);
+        assertEquals(Files.size(target), output.getBytes());
+        assertTrue(render.getBytes() > output.getBytes());
+    }
+
+    @Test
+    void toBytes_underFlightRecording_recordsExportAndPhaseEvents() throws IOException {
+        Path recordingFile = tempDir.resolve("export.jfr");
+        byte[] bytes;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.shings.excelmaker.Export");
+            recording.enable("com.shings.excelmaker.ExportPhase");
+            recording.start();
+            bytes = CsvMaker.builder("recorded.csv")
+                    .rows(IntStream.range(0, 1_000).mapToObj(i -> List.of("row", String.valueOf(i))).toList())
+                    .build()
+                    .toBytes();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        RecordedEvent export = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.shings.excelmaker.Export"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("CsvMaker", export.getString("makerType"));
+        assertEquals("recorded.csv", export.getString("fileName"));
+        assertEquals("toBytes", export.getString("output"));
+        assertEquals(1_000, export.getLong("rows"));
+        assertEquals(bytes.length, export.getLong("bytes"));
+        assertFalse(export.getBoolean("encrypted"));
+        assertNull(export.getStackTrace());
+
+        List<String> phases = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.shings.excelmaker.ExportPhase"))
+                .map(e -> e.getString("phase"))
+                .toList();
+        assertEquals(List.of("BUILD", "RENDER"), phases);
+    }
+
+    @Test
+    void progressListener_reportsRowsAndFinalBytes() {
+        for (boolean parallel : new boolean[]{false, true}) {
+            List<ExportProgress> reports = new ArrayList<>();
+            CsvMaker.Builder builder = CsvMaker.builder("progress.csv")
+                    .rowSource(IntStream.range(0, 5_000).mapToObj(i -> List.of("row", String.valueOf(i))))
+                    .progressListener(reports::add)
+                    .progressInterval(1_000);
+            if (parallel) {
+                builder.parallelEncoding(ForkJoinPool.commonPool(), 1_000, 2);
+            }
+
+            byte[] bytes = builder.build().toBytes();
+
+            assertTrue(reports.size() >= 5);
+            for (int i = 1; i < reports.size(); i++) {
+                assertTrue(reports.get(i).getRowsCompleted() >= reports.get(i - 1).getRowsCompleted());
+            }
+            ExportProgress last = reports.get(reports.size() - 1);
+            assertEquals(5_000, last.getRowsCompleted());
+            assertEquals(bytes.length, last.getBytesWritten());
+        }
+    }
+
+    @Test
+    void cancellationToken_stopsGenerationAndDeletesPartialFile() {
+        CancellationToken token = new CancellationToken();
+        Path target = tempDir.resolve("cancelled.csv");
+        CsvMaker maker = CsvMaker.builder("cancelled.csv")
+                .rowSource(IntStream.range(0, 1_000_000).mapToObj(i -> List.of("row", String.valueOf(i))))
+                .progressListener(progress -> token.cancel())
+                .cancellationToken(token)
+                .build();
+
+        CsvException e = assertThrows(CsvException.class, () -> maker.toPath(target));
+        assertInstanceOf(CancellationException.class, e.getCause());
+        assertFalse(Files.exists(target));
+
+        CsvMaker cancelledBeforeStart = CsvMaker.builder("cancelled.csv")
+                .row(List.of("a"))
+                .cancellationToken(token)
+                .build();
+        assertThrows(CsvException.class, cancelledBeforeStart::toTempFile);
+        assertThrows(CsvException.class, () -> CsvMaker.builder("cancelled.csv").progressInterval(0));
+    }
+
+    private static List<List<String>> readAll(CsvReader.Cursor cursor) {
+        List<List<String>> rows = new ArrayList<>();
+        while (cursor.next()) {
+            rows.add(cursor.toList());
+        }
+
+        return rows;
+    }
+
+    public enum Status {
+        PAID
+    }
+
+    public record Order(@ExcelColumn(value = "Order ID", order = 0) long id,
+                        @ExcelColumn(order = 1) String customer,
+                        @ExcelColumn(order = 2) double amount,
+                        @ExcelColumn(order = 3) boolean paid,
+                        @ExcelColumn(order = 4) LocalDate date,
+                        @ExcelColumn(order = 5) Status status,
+                        String memo) {
+    }
+
+    private static final class Account {
+        @ExcelColumn(order = 1)
+        private final String name;
+        @ExcelColumn(order = 0)
+        private final int balance;
+
+        private Account(String name, int balance) {
+            this.name = name;
+            this.balance = balance;
+        }
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final long batch;
+        Flow.Subscription subscription;
+        int chunks;
+
+        CollectingSubscriber(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            chunks++;
+            byte[] chunk = new byte[item.remaining()];
+            item.get(chunk);
+            bytes.write(chunk, 0, chunk.length);
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
 }
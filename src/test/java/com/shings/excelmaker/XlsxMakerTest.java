@@ -1,11 +1,34 @@
 package com.shings.excelmaker;
 
 import com.shings.excelmaker.exception.XlsxException;
+import com.shings.excelmaker.io.CompressionOptions;
+import com.shings.excelmaker.jdbc.ResultSetSource;
+import com.shings.excelmaker.mapping.ExcelColumn;
+import com.shings.excelmaker.metrics.GenerationEvent;
+import com.shings.excelmaker.metrics.GenerationPhase;
+import com.shings.excelmaker.progress.CancellationToken;
+import com.shings.excelmaker.progress.ExportProgress;
+import com.shings.excelmaker.table.Table;
+import com.shings.excelmaker.util.RowProducers;
+import com.shings.excelmaker.xlsx.XlsxEncryptionStaging;
+import com.shings.excelmaker.xlsx.XlsxEngine;
+import com.shings.excelmaker.xlsx.XlsxGenerationProfile;
 import com.shings.excelmaker.xlsx.XlsxSheet;
+import com.shings.excelmaker.xlsx.XlsxSheetCell;
+import com.shings.excelmaker.xlsx.XlsxStyleStats;
+import com.shings.excelmaker.xlsx.attribute.XlsxBorder;
+import com.shings.excelmaker.xlsx.attribute.XlsxColor;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.poifs.crypt.Decryptor;
 import org.apache.poi.poifs.crypt.EncryptionInfo;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -15,10 +38,33 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -490,4 +536,872 @@ class XlsxMakerTest {
             fail("Should be able to read workbook from temporary file", e);
         }
     }
+
+    @Test
+    void toBytes_withRowSource_streamsRowsAfterHeader() {
+        XlsxSheet sheet = XlsxSheet.builder("Streamed")
+                .header(List.of("id", "name"))
+                .rowSource(IntStream.range(0, 500).mapToObj(i -> List.of(String.valueOf(i), "name" + i)))
+                .build();
+
+        XlsxMaker maker = XlsxMaker.builder("streamed.xlsx")
+                .sheet(sheet)
+                .build();
+
+        byte[] bytes = maker.toBytes();
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes))) {
+            Sheet poiSheet = workbook.getSheet("Streamed");
+            assertEquals("id", poiSheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("0", poiSheet.getRow(1).getCell(0).getStringCellValue());
+            assertEquals("name499", poiSheet.getRow(500).getCell(1).getStringCellValue());
+            assertEquals(500, poiSheet.getLastRowNum());
+        } catch (IOException e) {
+            fail("Should be able to read workbook generated from a row source", e);
+        }
+    }
+
+    @Test
+    void toBytes_withRowSource_secondGenerationThrowsException() {
+        XlsxSheet sheet = XlsxSheet.builder("Once")
+                .rowSource(List.of(List.of("A1")).iterator())
+                .build();
+
+        XlsxMaker maker = XlsxMaker.builder("once.xlsx")
+                .sheet(sheet)
+                .build();
+
+        maker.toBytes();
+
+        assertThrows(XlsxException.class, maker::toBytes);
+    }
+
+    @Test
+    void toBytes_withNativeEngine_createsReadableWorkbook() {
+        XlsxSheet sheet = XlsxSheet.builder("Native")
+                .headerStyled(List.of(
+                        XlsxSheetCell.builder("id")
+                                .backgroundColor(XlsxColor.YELLOW)
+                                .border(XlsxBorder.THIN)
+                                .columnWidth(4000)
+                                .build(),
+                        XlsxSheetCell.builder("name").build()
+                ))
+                .rows(List.of(
+                        List.of("1", "Alice & <Bob>"),
+                        List.of("2", " padded ")
+                ))
+                .build();
+
+        XlsxMaker maker = XlsxMaker.builder("native.xlsx")
+                .engine(XlsxEngine.NATIVE)
+                .sheet(sheet)
+                .sheetLines("Lines", List.of("L1", "L2"))
+                .build();
+
+        byte[] bytes = maker.toBytes();
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes))) {
+            assertEquals(2, workbook.getNumberOfSheets());
+
+            Sheet poiSheet = workbook.getSheet("Native");
+            assertEquals("id", poiSheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("Alice & <Bob>", poiSheet.getRow(1).getCell(1).getStringCellValue());
+            assertEquals(" padded ", poiSheet.getRow(2).getCell(1).getStringCellValue());
+            assertEquals(4000, poiSheet.getColumnWidth(0));
+
+            CellStyle headerStyle = poiSheet.getRow(0).getCell(0).getCellStyle();
+            assertEquals(FillPatternType.SOLID_FOREGROUND, headerStyle.getFillPattern());
+            assertEquals(XlsxColor.YELLOW.toPoiColorIndex().shortValue(), headerStyle.getFillForegroundColor());
+            assertTrue(workbook.getFontAt(headerStyle.getFontIndex()).getBold());
+
+            assertEquals("L2", workbook.getSheet("Lines").getRow(1).getCell(0).getStringCellValue());
+        } catch (IOException e) {
+            fail("Should be able to read workbook written by the native engine", e);
+        }
+    }
+
+    @Test
+    void toBytes_withNativeEngine_keepsLiteralOoxmlEscapeSequences() throws IOException {
+        for (boolean sharedStrings : new boolean[]{false, true}) {
+            XlsxMaker.Builder builder = XlsxMaker.builder("escapes.xlsx")
+                    .engine(XlsxEngine.NATIVE)
+                    .sheetRows("Escapes", List.of(List.of("_x0041_", "a_x00e9_b_", "x\u0001y", "_x12_")));
+            if (sharedStrings) {
+                builder.sharedStrings(1024);
+            }
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(builder.build().toBytes()))) {
+                Row row = workbook.getSheet("Escapes").getRow(0);
+                assertEquals("_x0041_", row.getCell(0).getStringCellValue());
+                assertEquals("a_x00e9_b_", row.getCell(1).getStringCellValue());
+                assertEquals("x\u0001y", row.getCell(2).getStringCellValue());
+                assertEquals("_x12_", row.getCell(3).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    void toBytes_withLineBreaksAndTabs_readsBackTheSameForEveryEngine() throws IOException {
+        List<String> values = List.of("a\r\nb", "a\rb", "a\nb", "a\tb", "\tlead", "trail\r\n");
+        for (XlsxEngine engine : XlsxEngine.values()) {
+            XlsxMaker maker = XlsxMaker.builder("breaks.xlsx")
+                    .engine(engine)
+                    .sheetRows("Breaks", List.of(values))
+                    .build();
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(maker.toBytes()))) {
+                Row row = workbook.getSheet("Breaks").getRow(0);
+                for (int i = 0; i < values.size(); i++) {
+                    assertEquals(values.get(i), row.getCell(i).getStringCellValue(), engine + " column " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void toBytes_withNativeEngineAndPassword_fallsBackToPoiEncryption() throws IOException {
+        XlsxMaker maker = XlsxMaker.builder("native-secret.xlsx")
+                .engine(XlsxEngine.NATIVE)
+                .sheetRows("Secret", List.of(List.of("S1")))
+                .password("pw")
+                .build();
+
+        byte[] bytes = maker.toBytes();
+
+        try (POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(bytes))) {
+            assertTrue(fs.getRoot().hasEntry("EncryptedPackage"));
+        }
+    }
+
+    @Test
+    void toBytes_withNativeEngine_duplicateSheetNameThrowsException() {
+        XlsxMaker maker = XlsxMaker.builder("dup.xlsx")
+                .engine(XlsxEngine.NATIVE)
+                .sheetLines("Same", List.of("a"))
+                .sheetLines("same", List.of("b"))
+                .build();
+
+        assertThrows(XlsxException.class, maker::toBytes);
+    }
+
+    @Test
+    void builder_engine_null_throwsException() {
+        XlsxMaker.Builder builder = XlsxMaker.builder("test.xlsx");
+
+        assertThrows(XlsxException.class, () -> builder.engine(null));
+    }
+
+    @Test
+    void toBytes_withIdenticalHeaderStyles_reusesSingleCellStyle() {
+        for (XlsxEngine engine : XlsxEngine.values()) {
+            List<XlsxSheetCell> header = List.of(
+                    XlsxSheetCell.builder("a").backgroundColor(XlsxColor.GREY).border(XlsxBorder.THIN).build(),
+                    XlsxSheetCell.builder("b").backgroundColor(XlsxColor.GREY).border(XlsxBorder.THIN).build(),
+                    XlsxSheetCell.builder("c").backgroundColor(XlsxColor.GREY).border(XlsxBorder.THIN).build()
+            );
+            AtomicReference<XlsxStyleStats> stats = new AtomicReference<>();
+
+            XlsxMaker maker = XlsxMaker.builder("styles.xlsx")
+                    .engine(engine)
+                    .sheet(XlsxSheet.builder("S1").headerStyled(header).build())
+                    .sheet(XlsxSheet.builder("S2").headerStyled(header).build())
+                    .styleStatsListener(stats::set)
+                    .build();
+
+            byte[] bytes = maker.toBytes();
+
+            assertEquals(1, stats.get().getStyleCount());
+            assertEquals(1, stats.get().getFontCount());
+            assertEquals(1, stats.get().getMissCount());
+            assertEquals(5, stats.get().getHitCount());
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes))) {
+                assertEquals(workbook.getSheet("S1").getRow(0).getCell(0).getCellStyle().getIndex(),
+                        workbook.getSheet("S2").getRow(0).getCell(2).getCellStyle().getIndex());
+            } catch (IOException e) {
+                fail("Should be able to read workbook with pooled styles", e);
+            }
+        }
+    }
+
+    @Test
+    void toBytes_withRowProducer_writesTypedCells() {
+        for (XlsxEngine engine : XlsxEngine.values()) {
+            Iterator<Long> ids = List.of(1L, 2L).iterator();
+
+            XlsxSheet sheet = XlsxSheet.builder("Typed")
+                    .header(List.of("id", "amount", "active", "day", "at", "note"))
+                    .rowProducer(sink -> {
+                        if (!ids.hasNext()) {
+                            return false;
+                        }
+
+                        long id = ids.next();
+                        sink.number(id);
+                        sink.number(id * 1.5);
+                        sink.bool(id % 2 == 0);
+                        sink.date(LocalDate.of(2024, 1, (int) id));
+                        sink.dateTime(LocalDateTime.of(2024, 1, 1, 12, 30));
+                        sink.blank();
+                        return true;
+                    })
+                    .build();
+
+            XlsxMaker maker = XlsxMaker.builder("typed.xlsx")
+                    .engine(engine)
+                    .sheet(sheet)
+                    .build();
+
+            byte[] bytes = maker.toBytes();
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes))) {
+                Row row = workbook.getSheet("Typed").getRow(2);
+                assertEquals(CellType.NUMERIC, row.getCell(0).getCellType());
+                assertEquals(2.0, row.getCell(0).getNumericCellValue());
+                assertEquals(3.0, row.getCell(1).getNumericCellValue());
+                assertEquals(CellType.BOOLEAN, row.getCell(2).getCellType());
+                assertTrue(row.getCell(2).getBooleanCellValue());
+                assertTrue(DateUtil.isCellDateFormatted(row.getCell(3)));
+                assertEquals(LocalDateTime.of(2024, 1, 2, 0, 0), row.getCell(3).getLocalDateTimeCellValue());
+                assertEquals(LocalDateTime.of(2024, 1, 1, 12, 30), row.getCell(4).getLocalDateTimeCellValue());
+                assertNull(row.getCell(5));
+            } catch (IOException e) {
+                fail("Should be able to read workbook with typed cells", e);
+            }
+        }
+    }
+
+    @Test
+    void toBytes_withTable_usesColumnNamesAsHeaderAndWritesNumbers() {
+        Table table = Table.builder()
+                .longColumn("id", new long[]{10L, 20L})
+                .stringColumn("status", List.of("ACTIVE", "ACTIVE"))
+                .build();
+
+        for (XlsxEngine engine : XlsxEngine.values()) {
+            XlsxMaker maker = XlsxMaker.builder("table.xlsx")
+                    .engine(engine)
+                    .sheet(XlsxSheet.builder("Table").table(table).build())
+                    .build();
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(maker.toBytes()))) {
+                Sheet poiSheet = workbook.getSheet("Table");
+                assertEquals("id", poiSheet.getRow(0).getCell(0).getStringCellValue());
+                assertEquals("status", poiSheet.getRow(0).getCell(1).getStringCellValue());
+                assertEquals(20.0, poiSheet.getRow(2).getCell(0).getNumericCellValue());
+                assertEquals("ACTIVE", poiSheet.getRow(2).getCell(1).getStringCellValue());
+            } catch (IOException e) {
+                fail("Should be able to read workbook generated from a table", e);
+            }
+        }
+    }
+
+    @Test
+    void toBytes_withObjects_usesAnnotationsForHeaderAndTypedCells() {
+        List<Shipment> shipments = List.of(
+                new Shipment("S-1", 3, LocalDate.of(2025, 3, 1), true),
+                new Shipment("S-2", 5, null, false));
+
+        for (XlsxEngine engine : XlsxEngine.values()) {
+            XlsxMaker maker = XlsxMaker.builder("shipments.xlsx")
+                    .engine(engine)
+                    .sheet(XlsxSheet.builder("Shipments").objects(Shipment.class, shipments).build())
+                    .build();
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(maker.toBytes()))) {
+                Sheet poiSheet = workbook.getSheet("Shipments");
+                assertEquals("Code", poiSheet.getRow(0).getCell(0).getStringCellValue());
+                assertEquals("quantity", poiSheet.getRow(0).getCell(1).getStringCellValue());
+                assertEquals(20 * 256, poiSheet.getColumnWidth(0));
+                assertEquals("S-2", poiSheet.getRow(2).getCell(0).getStringCellValue());
+                assertEquals(CellType.NUMERIC, poiSheet.getRow(2).getCell(1).getCellType());
+                assertEquals(5.0, poiSheet.getRow(2).getCell(1).getNumericCellValue());
+                assertTrue(DateUtil.isCellDateFormatted(poiSheet.getRow(1).getCell(2)));
+                assertNull(poiSheet.getRow(2).getCell(2));
+                assertTrue(poiSheet.getRow(1).getCell(3).getBooleanCellValue());
+            } catch (IOException e) {
+                fail("Should be able to read workbook generated from objects", e);
+            }
+        }
+    }
+
+    @Test
+    void objects_invalidTypeOrNullElement_throwsXlsxException() {
+        assertThrows(XlsxException.class, () -> XlsxSheet.builder("Shipments").objects(String.class, List.of("a")));
+        assertThrows(XlsxException.class, () -> XlsxSheet.builder("Shipments").objectSource(String.class, Stream.of("a")));
+
+        for (XlsxEngine engine : XlsxEngine.values()) {
+            XlsxMaker maker = XlsxMaker.builder("shipments.xlsx")
+                    .engine(engine)
+                    .sheet(XlsxSheet.builder("Shipments")
+                            .objects(Shipment.class, Arrays.asList(new Shipment("S-1", 3, null, true), null))
+                            .build())
+                    .build();
+
+            assertThrows(XlsxException.class, maker::toBytes);
+        }
+    }
+
+    @Test
+    void openRows_failingAfterRowSourceIsTaken_closesRowSource() {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Iterable<Shipment> failingObjects = () -> {
+            throw new IllegalStateException("objects unavailable");
+        };
+        XlsxSheet sheet = XlsxSheet.builder("Shipments")
+                .rowSource(Stream.of(List.of("S-0")).onClose(() -> closed.set(true)))
+                .objects(Shipment.class, failingObjects)
+                .build();
+
+        assertThrows(IllegalStateException.class, sheet::openRows);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void toBytes_withResultSet_streamsTypedCellsUnderColumnLabels() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:xlsx_result_set");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE events (id INT, name VARCHAR(20), at TIMESTAMP)");
+            statement.execute("INSERT INTO events SELECT x, 'event' || x, TIMESTAMP '2025-01-01 12:30:00' FROM SYSTEM_RANGE(1, 2500)");
+
+            for (XlsxEngine engine : XlsxEngine.values()) {
+                ResultSetSource source = ResultSetSource.of(statement.executeQuery("SELECT id, name, at FROM events ORDER BY id"), 100);
+                XlsxMaker maker = XlsxMaker.builder("events.xlsx")
+                        .engine(engine)
+                        .sheet(XlsxSheet.builder("Events").resultSet(source).build())
+                        .build();
+
+                try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(maker.toBytes()))) {
+                    Sheet poiSheet = workbook.getSheet("Events");
+                    assertEquals("ID", poiSheet.getRow(0).getCell(0).getStringCellValue());
+                    assertEquals(2500, poiSheet.getLastRowNum());
+                    Row last = poiSheet.getRow(2500);
+                    assertEquals(CellType.NUMERIC, last.getCell(0).getCellType());
+                    assertEquals(2500.0, last.getCell(0).getNumericCellValue());
+                    assertEquals("event2500", last.getCell(1).getStringCellValue());
+                    assertEquals(LocalDateTime.of(2025, 1, 1, 12, 30), last.getCell(2).getLocalDateTimeCellValue());
+                } catch (IOException e) {
+                    fail("Should be able to read workbook generated from a result set", e);
+                }
+
+                assertThrows(XlsxException.class, maker::toBytes);
+            }
+        }
+    }
+
+    @Test
+    void toBytes_withFailingResultSet_throwsXlsxExceptionCausedBySqlExceptionForEveryEngine() {
+        for (XlsxEngine engine : XlsxEngine.values()) {
+            XlsxMaker maker = XlsxMaker.builder("failing.xlsx")
+                    .engine(engine)
+                    .sheet(XlsxSheet.builder("Events").resultSet(ResultSetSource.of(failingResultSet(1_500))).build())
+                    .build();
+
+            XlsxException exception = assertThrows(XlsxException.class, maker::toBytes);
+            assertInstanceOf(IOException.class, exception.getCause());
+            assertInstanceOf(SQLException.class, exception.getCause().getCause());
+        }
+    }
+
+    // A single-column result set that fails with a SQLException after the given number of rows.
+    @Test
+    void resultSet_takesRowsOnlyWhenTheSheetIsGenerated() throws SQLException {
+        ResultSetSource source = ResultSetSource.of(failingResultSet(0));
+        XlsxSheet sheet = XlsxSheet.builder("Events").resultSet(source).build();
+
+        assertTrue(sheet.hasRowSource());
+        assertFalse(source.isConsumed());
+        source.rows().close();
+        assertThrows(XlsxException.class, () -> XlsxSheet.builder("Events").resultSet(source));
+    }
+
+    @Test
+    void toBytes_withSeveralStreamedSources_appendsThemInOrderForEveryEngine() throws IOException {
+        for (XlsxEngine engine : XlsxEngine.values()) {
+            XlsxSheet sheet = XlsxSheet.builder("Streamed")
+                    .rowProducer(RowProducers.ofTextRows(List.of(List.of("P-1")).iterator(), () -> {
+                    }))
+                    .objectSource(Shipment.class, Stream.of(new Shipment("S-1", 3, null, true)))
+                    .rowProducer(RowProducers.ofTextRows(List.of(List.of("P-2")).iterator(), () -> {
+                    }))
+                    .build();
+            XlsxMaker maker = XlsxMaker.builder("streamed.xlsx").engine(engine).sheet(sheet).build();
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(maker.toBytes()))) {
+                Sheet poiSheet = workbook.getSheet("Streamed");
+                assertEquals(3, poiSheet.getLastRowNum(), engine.name());
+                assertEquals("P-1", poiSheet.getRow(1).getCell(0).getStringCellValue());
+                assertEquals("S-1", poiSheet.getRow(2).getCell(0).getStringCellValue());
+                assertEquals("P-2", poiSheet.getRow(3).getCell(0).getStringCellValue());
+            }
+            assertThrows(XlsxException.class, maker::toBytes);
+        }
+    }
+
+    private static ResultSet failingResultSet(int rowsBeforeFailure) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                XlsxMakerTest.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> 1;
+                    case "getColumnLabel" -> "ID";
+                    case "getColumnType" -> Types.VARCHAR;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        int[] rows = {0};
+        return (ResultSet) Proxy.newProxyInstance(
+                XlsxMakerTest.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getMetaData" -> metaData;
+                    case "next" -> {
+                        if (rows[0]++ == rowsBeforeFailure) {
+                            throw new SQLException("Connection reset.");
+                        }
+                        yield true;
+                    }
+                    case "getString" -> "event" + rows[0];
+                    case "wasNull" -> false;
+                    case "setFetchSize", "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void toBytes_withParallelSheets_keepsSheetOrderAndRows() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            XlsxMaker.Builder builder = XlsxMaker.builder("parallel.xlsx")
+                    .engine(XlsxEngine.NATIVE)
+                    .parallelSheets(executor);
+            for (int sheetIndex = 0; sheetIndex < 8; sheetIndex++) {
+                int index = sheetIndex;
+                builder.sheet(XlsxSheet.builder("Sheet" + index)
+                        .header(List.of("row", "sheet"))
+                        .rowSource(IntStream.range(0, 1000).mapToObj(i -> List.of(String.valueOf(i), String.valueOf(index))))
+                        .build());
+            }
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(builder.build().toBytes()))) {
+                assertEquals(8, workbook.getNumberOfSheets());
+                for (int sheetIndex = 0; sheetIndex < 8; sheetIndex++) {
+                    Sheet sheet = workbook.getSheetAt(sheetIndex);
+                    assertEquals("Sheet" + sheetIndex, sheet.getSheetName());
+                    assertEquals(1000, sheet.getLastRowNum());
+                    assertEquals(String.valueOf(sheetIndex), sheet.getRow(1000).getCell(1).getStringCellValue());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void toBytes_withParallelSheets_propagatesSheetFailure() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            XlsxMaker maker = XlsxMaker.builder("parallel.xlsx")
+                    .engine(XlsxEngine.NATIVE)
+                    .parallelSheets(executor)
+                    .sheetRows("Valid", List.of(List.of("ok")))
+                    .sheetRows("TooLong", List.of(List.of("x".repeat(32_768))))
+                    .build();
+
+            assertThrows(XlsxException.class, maker::toBytes);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void builder_parallelSheets_null_throwsException() {
+        XlsxMaker.Builder builder = XlsxMaker.builder("parallel.xlsx");
+
+        assertThrows(XlsxException.class, () -> builder.parallelSheets(null));
+    }
+
+    @Test
+    void build_parallelSheets_withoutNativeEngineOrWithPassword_throwsException() {
+        Executor executor = Runnable::run;
+
+        assertThrows(XlsxException.class, () -> XlsxMaker.builder("parallel.xlsx").parallelSheets(executor).build());
+        assertThrows(XlsxException.class, () -> XlsxMaker.builder("parallel.xlsx")
+                .engine(XlsxEngine.NATIVE)
+                .password("s3cr3t")
+                .parallelSheets(executor)
+                .build());
+    }
+
+    @Test
+    void toBytes_withGenerationProfile_spillsToTempDirectoryAndKeepsAllRows() throws IOException {
+        Path spillDirectory = tempDir.resolve("spill");
+        XlsxGenerationProfile profile = XlsxGenerationProfile.builder()
+                .memoryBudget(64 * 1024)
+                .sharedStrings(true)
+                .tempDirectory(spillDirectory)
+                .build();
+
+        XlsxMaker maker = XlsxMaker.builder("profile.xlsx")
+                .generationProfile(profile)
+                .sheet(XlsxSheet.builder("Wide")
+                        .header(List.of("a", "b", "c"))
+                        .rowSource(IntStream.range(0, 5_000).mapToObj(i -> List.of("a" + i, "b", "c" + (i % 10))))
+                        .build())
+                .sheetRows("Second", List.of(List.of("x")))
+                .build();
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(maker.toBytes()))) {
+            Sheet sheet = workbook.getSheet("Wide");
+            assertEquals(5_000, sheet.getLastRowNum());
+            assertEquals("a4999", sheet.getRow(5_000).getCell(0).getStringCellValue());
+            assertEquals("x", workbook.getSheet("Second").getRow(0).getCell(0).getStringCellValue());
+        }
+
+        assertTrue(Files.isDirectory(spillDirectory));
+        assertTrue(profile.isCompressTempFiles());
+    }
+
+    @Test
+    void generationProfile_presetsAndValidation() {
+        assertFalse(XlsxGenerationProfile.throughput().isCompressTempFiles());
+        assertTrue(XlsxGenerationProfile.lowFootprint().isCompressTempFiles());
+        assertFalse(XlsxGenerationProfile.builder().memoryBudget(1024).compressTempFiles(false).build().isCompressTempFiles());
+
+        assertThrows(XlsxException.class, () -> XlsxGenerationProfile.builder().memoryBudget(0));
+        assertThrows(XlsxException.class, () -> XlsxMaker.builder("profile.xlsx").generationProfile(null));
+    }
+
+    @Test
+    void toBytes_withPassword_bothEncryptionStagingsDecrypt() throws Exception {
+        for (XlsxEncryptionStaging staging : XlsxEncryptionStaging.values()) {
+            XlsxMaker maker = XlsxMaker.builder("secret.xlsx")
+                    .password("s3cr3t")
+                    .encryptionStaging(staging)
+                    .sheet(XlsxSheet.builder("SecretSheet")
+                            .rowSource(IntStream.range(0, 2_000).mapToObj(i -> List.of("row" + i)))
+                            .build())
+                    .build();
+
+            try (POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(maker.toBytes()))) {
+                Decryptor decryptor = Decryptor.getInstance(new EncryptionInfo(fs));
+                assertTrue(decryptor.verifyPassword("s3cr3t"));
+
+                try (OPCPackage opc = OPCPackage.open(decryptor.getDataStream(fs));
+                     XSSFWorkbook workbook = new XSSFWorkbook(opc)) {
+                    assertEquals("row1999", workbook.getSheet("SecretSheet").getRow(1_999).getCell(0).getStringCellValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    void toPath_withPassword_tempFileStagingStreamsOutputBeyondTheMappingLimit() throws Exception {
+        // 65530 mappings of 512-byte blocks is the default vm.max_map_count a block-mapped POIFS would run into.
+        long mappingLimitBytes = 65_530L * 512;
+        int rows = 260_000;
+        String padding = "x".repeat(120);
+        Path path = tempDir.resolve("large-secret.xlsx");
+
+        XlsxMaker.builder("large-secret.xlsx")
+                .password("s3cr3t")
+                .encryptionStaging(XlsxEncryptionStaging.TEMP_FILE)
+                .compression(CompressionOptions.stored())
+                .sheet(XlsxSheet.builder("SecretSheet")
+                        .rowSource(IntStream.range(0, rows).mapToObj(i -> List.of("row-" + i + "-" + padding)))
+                        .build())
+                .build()
+                .toPath(path);
+
+        assertTrue(Files.size(path) > mappingLimitBytes);
+
+        try (POIFSFileSystem fs = new POIFSFileSystem(Files.newInputStream(path))) {
+            Decryptor decryptor = Decryptor.getInstance(new EncryptionInfo(fs));
+            assertTrue(decryptor.verifyPassword("s3cr3t"));
+
+            boolean foundSheet = false;
+            try (ZipInputStream zip = new ZipInputStream(decryptor.getDataStream(fs))) {
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    if (entry.getName().equals("xl/worksheets/sheet1.xml")) {
+                        String sheetXml = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                        assertTrue(sheetXml.contains("row-" + (rows - 1) + "-" + padding));
+                        foundSheet = true;
+                    }
+                }
+            }
+            assertTrue(foundSheet);
+        }
+    }
+
+    @Test
+    void builder_encryptionStaging_null_throwsException() {
+        assertThrows(XlsxException.class, () -> XlsxMaker.builder("secret.xlsx").encryptionStaging(null));
+    }
+
+    @Test
+    void toBytes_withSharedStrings_deduplicatesAndFallsBackToInlineWhenFull() throws IOException {
+        XlsxSheet sheet = XlsxSheet.builder("Accounts")
+                .header(List.of("id", "status"))
+                .rows(IntStream.range(0, 5000)
+                        .mapToObj(i -> List.of("account-" + i, i % 3 == 0 ? "INACTIVE" : "ACTIVE"))
+                        .toList())
+                .build();
+
+        byte[] inline = XlsxMaker.builder("inline.xlsx")
+                .engine(XlsxEngine.NATIVE)
+                .sheet(sheet)
+                .build()
+                .toBytes();
+        byte[] shared = XlsxMaker.builder("shared.xlsx")
+                .engine(XlsxEngine.NATIVE)
+                .sharedStrings(1024)
+                .sheet(sheet)
+                .build()
+                .toBytes();
+
+        assertTrue(shared.length < inline.length);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(shared))) {
+            Sheet poiSheet = workbook.getSheet("Accounts");
+            assertEquals("status", poiSheet.getRow(0).getCell(1).getStringCellValue());
+            for (int i = 0; i < 5000; i++) {
+                assertEquals("account-" + i, poiSheet.getRow(i + 1).getCell(0).getStringCellValue());
+                assertEquals(i % 3 == 0 ? "INACTIVE" : "ACTIVE", poiSheet.getRow(i + 1).getCell(1).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    void builder_sharedStrings_nonPositive_throwsException() {
+        assertThrows(XlsxException.class, () -> XlsxMaker.builder("shared.xlsx").sharedStrings(0));
+    }
+
+    @Test
+    void build_sharedStrings_withoutNativeEngineOrWithPassword_throwsException() {
+        assertThrows(XlsxException.class, () -> XlsxMaker.builder("shared.xlsx").sharedStrings(1024).build());
+        assertThrows(XlsxException.class, () -> XlsxMaker.builder("shared.xlsx")
+                .engine(XlsxEngine.NATIVE)
+                .password("s3cr3t")
+                .sharedStrings(1024)
+                .build());
+    }
+
+    @Test
+    void toBytes_withCompressionOptions_writesReadableWorkbookForEveryMode() throws IOException {
+        List<List<String>> rows = IntStream.range(0, 20_000)
+                .mapToObj(i -> List.of("row" + i, i % 2 == 0 ? "A" : "B"))
+                .toList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompressionOptions parallelDeflate = CompressionOptions.builder().parallel(executor).blockSize(64 * 1024).build();
+            List<XlsxMaker.Builder> builders = List.of(
+                    XlsxMaker.builder("poi.xlsx").compression(CompressionOptions.builder().level(CompressionOptions.BEST_SPEED).build()),
+                    XlsxMaker.builder("stored.xlsx").engine(XlsxEngine.NATIVE).compression(CompressionOptions.stored()),
+                    XlsxMaker.builder("stored-parallel.xlsx").engine(XlsxEngine.NATIVE).compression(CompressionOptions.stored())
+                            .parallelSheets(executor),
+                    XlsxMaker.builder("parallel-deflate.xlsx").engine(XlsxEngine.NATIVE).compression(parallelDeflate)
+            );
+
+            for (XlsxMaker.Builder builder : builders) {
+                builder.sheetRows("First", rows).sheetRows("Second", rows);
+
+                try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(builder.build().toBytes()))) {
+                    assertEquals(2, workbook.getNumberOfSheets());
+                    assertEquals("row19999", workbook.getSheet("Second").getRow(19_999).getCell(0).getStringCellValue());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void builder_compression_null_throwsException() {
+        assertThrows(XlsxException.class, () -> XlsxMaker.builder("compressed.xlsx").compression(null));
+    }
+
+    @Test
+    void generationListener_reportsPhasesForEveryEngine() throws IOException {
+        List<List<String>> rows = IntStream.range(0, 500).mapToObj(i -> List.of("row" + i, "x")).toList();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<XlsxMaker.Builder> builders = List.of(
+                    XlsxMaker.builder("poi.xlsx"),
+                    XlsxMaker.builder("native.xlsx").engine(XlsxEngine.NATIVE),
+                    XlsxMaker.builder("parallel.xlsx").engine(XlsxEngine.NATIVE).parallelSheets(executor)
+            );
+
+            for (XlsxMaker.Builder builder : builders) {
+                List<GenerationEvent> events = new ArrayList<>();
+                byte[] bytes = builder.sheetRows("First", rows)
+                        .sheetRows("Second", rows)
+                        .generationListener(events::add)
+                        .build()
+                        .toBytes();
+
+                List<GenerationEvent> renders = events.stream().filter(e -> e.getPhase() == GenerationPhase.RENDER).toList();
+                assertEquals(List.of("First", "Second"), renders.stream().map(GenerationEvent::getSheetName).toList());
+                assertEquals(500, renders.get(1).getRows());
+                assertEquals(1000, renders.get(1).getCells());
+
+                assertEquals(GenerationPhase.BUILD, events.get(0).getPhase());
+                assertEquals(GenerationPhase.PACKAGE, events.get(events.size() - 2).getPhase());
+                assertEquals(bytes.length, events.get(events.size() - 2).getBytes());
+
+                GenerationEvent output = events.get(events.size() - 1);
+                assertEquals(GenerationPhase.OUTPUT, output.getPhase());
+                assertEquals(1000, output.getRows());
+                assertEquals(bytes.length, output.getBytes());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void generationListener_withPassword_reportsEncryptionInsteadOfPackage() {
+        List<GenerationEvent> events = new ArrayList<>();
+        byte[] bytes = XlsxMaker.builder("secret.xlsx")
+                .sheetRows("Sheet1", List.of(List.of("a", "b")))
+                .password("pw")
+                .generationListener(events::add)
+                .build()
+                .toBytes();
+
+        assertEquals(List.of(GenerationPhase.BUILD, GenerationPhase.RENDER, GenerationPhase.FLUSH, GenerationPhase.ENCRYPTION, GenerationPhase.OUTPUT),
+                events.stream().map(GenerationEvent::getPhase).toList());
+        assertEquals(bytes.length, events.get(3).getBytes());
+    }
+
+    @Test
+    void toBytes_underFlightRecording_recordsSheetsAndEncryption() throws IOException {
+        Path recordingFile = tempDir.resolve("export.jfr");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (Recording recording = new Recording()) {
+            recording.enable("com.shings.excelmaker.Export");
+            recording.enable("com.shings.excelmaker.ExportPhase");
+            recording.start();
+            XlsxMaker.builder("native.xlsx")
+                    .engine(XlsxEngine.NATIVE)
+                    .parallelSheets(executor)
+                    .sheetRows("First", List.of(List.of("a", "b")))
+                    .sheetRows("Second", List.of(List.of("c", "d")))
+                    .build()
+                    .toBytes();
+            XlsxMaker.builder("secret.xlsx")
+                    .sheetRows("Sheet1", List.of(List.of("a", "b")))
+                    .password("pw")
+                    .build()
+                    .toBytes();
+            recording.stop();
+            recording.dump(recordingFile);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        List<RecordedEvent> exports = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.shings.excelmaker.Export"))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .toList();
+        assertEquals(2, exports.size());
+        assertEquals("XlsxMaker", exports.get(0).getString("makerType"));
+        assertEquals(2, exports.get(0).getInt("sheets"));
+        assertFalse(exports.get(0).getBoolean("encrypted"));
+        assertEquals(1, exports.get(1).getInt("sheets"));
+        assertTrue(exports.get(1).getBoolean("encrypted"));
+
+        List<String> renderedSheets = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.shings.excelmaker.ExportPhase"))
+                .filter(e -> e.getString("phase").equals("RENDER") && e.getString("fileName").equals("native.xlsx"))
+                .map(e -> e.getString("sheetName"))
+                .sorted()
+                .toList();
+        assertEquals(List.of("First", "Second"), renderedSheets);
+    }
+
+    @Test
+    void progressListener_reportsSheetsForEveryEngine() {
+        List<List<String>> rows = IntStream.range(0, 3_000).mapToObj(i -> List.of("row" + i)).toList();
+        for (XlsxEngine engine : XlsxEngine.values()) {
+            List<ExportProgress> reports = new ArrayList<>();
+            byte[] bytes = XlsxMaker.builder("progress.xlsx")
+                    .engine(engine)
+                    .sheetRows("First", rows)
+                    .sheetRows("Second", rows)
+                    .progressListener(reports::add)
+                    .progressInterval(1_000)
+                    .build()
+                    .toBytes();
+
+            assertTrue(reports.stream().anyMatch(r -> r.getSheetsCompleted() == 1));
+            ExportProgress last = reports.get(reports.size() - 1);
+            assertEquals(6_000, last.getRowsCompleted());
+            assertEquals(2, last.getSheetsCompleted());
+            assertEquals(bytes.length, last.getBytesWritten());
+        }
+    }
+
+    @Test
+    void cancellationToken_deletesSpilledTempFilesAndPartialOutput() throws IOException {
+        Path spillDirectory = tempDir.resolve("spill");
+        XlsxGenerationProfile profile = XlsxGenerationProfile.builder()
+                .memoryBudget(64 * 1024)
+                .tempDirectory(spillDirectory)
+                .build();
+        CancellationToken token = new CancellationToken();
+        Path target = tempDir.resolve("cancelled.xlsx");
+
+        XlsxMaker maker = XlsxMaker.builder("cancelled.xlsx")
+                .generationProfile(profile)
+                .sheet(XlsxSheet.builder("Endless")
+                        .rowSource(IntStream.range(0, 1_000_000).mapToObj(i -> List.of("row" + i, "b", "c")))
+                        .build())
+                .progressListener(progress -> {
+                    if (progress.getRowsCompleted() >= 20_000) {
+                        token.cancel();
+                    }
+                })
+                .cancellationToken(token)
+                .build();
+
+        XlsxException e = assertThrows(XlsxException.class, () -> maker.toPath(target));
+        assertInstanceOf(CancellationException.class, e.getCause());
+        assertFalse(Files.exists(target));
+        try (Stream<Path> spilled = Files.list(spillDirectory)) {
+            assertEquals(0, spilled.count());
+        }
+    }
+
+    @Test
+    void cancellationToken_stopsParallelNativeSheets() {
+        CancellationToken token = new CancellationToken();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            XlsxMaker.Builder builder = XlsxMaker.builder("cancelled.xlsx")
+                    .engine(XlsxEngine.NATIVE)
+                    .parallelSheets(executor)
+                    .progressListener(progress -> token.cancel())
+                    .progressInterval(1_000)
+                    .cancellationToken(token);
+            for (int i = 0; i < 4; i++) {
+                builder.sheet(XlsxSheet.builder("Sheet" + i)
+                        .rowSource(IntStream.range(0, 1_000_000).mapToObj(row -> List.of("row" + row)))
+                        .build());
+            }
+
+            XlsxMaker maker = builder.build();
+            XlsxException e = assertThrows(XlsxException.class, maker::toBytes);
+            assertInstanceOf(CancellationException.class, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public record Shipment(@ExcelColumn(value = "Code", width = 20 * 256) String code,
+                           @ExcelColumn int quantity,
+                           @ExcelColumn LocalDate shippedOn,
+                           @ExcelColumn boolean delivered) {
+    }
 }
@@ -0,0 +1,132 @@
+package com.shings.excelmaker.batch;
+
+import com.shings.excelmaker.CsvMaker;
+import com.shings.excelmaker.exception.CsvException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchExportRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void run_writesEveryJobAndReportsTotals() throws IOException {
+        BatchExportRunner runner = BatchExportRunner.builder()
+                .parallelism(4)
+                .queueCapacity(2)
+                .build();
+
+        BatchExportReport report = runner.run(IntStream.range(0, 50)
+                .mapToObj(i -> BatchExportJob.of(customerCsv(i), tempDir.resolve("customer-" + i + ".csv"))));
+
+        assertEquals(50, report.getSucceeded());
+        assertEquals(0, report.getFailed());
+        assertTrue(report.getFailures().isEmpty());
+
+        long totalBytes = 0;
+        for (int i = 0; i < 50; i++) {
+            Path file = tempDir.resolve("customer-" + i + ".csv");
+            assertEquals("customer\n" + i + "\n", Files.readString(file, StandardCharsets.UTF_8));
+            totalBytes += Files.size(file);
+        }
+        assertEquals(totalBytes, report.getBytesWritten());
+    }
+
+    @Test
+    void run_failingJob_doesNotStopOtherJobs() {
+        CsvMaker consumed = CsvMaker.builder("consumed.csv")
+                .rowSource(List.of(List.of("a")).iterator())
+                .build();
+        consumed.toBytes();
+
+        BatchExportJob failing = BatchExportJob.of(consumed, tempDir.resolve("consumed.csv"));
+
+        BatchExportReport report = BatchExportRunner.builder()
+                .parallelism(2)
+                .build()
+                .run(IntStream.range(0, 10)
+                        .mapToObj(i -> i == 3 ? failing : BatchExportJob.of(customerCsv(i), tempDir.resolve(i + ".csv"))));
+
+        assertEquals(9, report.getSucceeded());
+        assertEquals(1, report.getFailed());
+        assertSame(failing, report.getFailures().get(0).getJob());
+        assertInstanceOf(CsvException.class, report.getFailures().get(0).getCause());
+    }
+
+    @Test
+    void run_pullsJobsOnlyWhenQueueHasRoom() {
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+
+        BatchExportReport report = BatchExportRunner.builder()
+                .parallelism(2)
+                .queueCapacity(3)
+                .build()
+                .run(IntStream.range(0, 40).mapToObj(i -> {
+                    maxAhead.accumulateAndGet(created.incrementAndGet() - finished.get(), Math::max);
+                    CsvMaker maker = CsvMaker.builder("job.csv")
+                            .rowSource(IntStream.range(0, 1).mapToObj(r -> {
+                                finished.incrementAndGet();
+                                return List.of(String.valueOf(i));
+                            }))
+                            .build();
+                    return BatchExportJob.of(maker, tempDir.resolve("job-" + i + ".csv"));
+                }));
+
+        assertEquals(40, report.getSucceeded());
+        // Two running, three queued and the one being offered.
+        assertTrue(maxAhead.get() <= 6, "pulled " + maxAhead.get() + " jobs ahead");
+    }
+
+    @Test
+    void run_withDirectExecutor_runsEveryJobOnTheCallingThread() {
+        Thread caller = Thread.currentThread();
+        AtomicInteger onCaller = new AtomicInteger();
+
+        BatchExportReport report = BatchExportRunner.builder()
+                .parallelism(2)
+                .queueCapacity(2)
+                .executor(task -> {
+                    if (Thread.currentThread() == caller) {
+                        onCaller.incrementAndGet();
+                    }
+                    task.run();
+                })
+                .build()
+                .run(IntStream.range(0, 10)
+                        .mapToObj(i -> BatchExportJob.of(customerCsv(i), tempDir.resolve("direct-" + i + ".csv"))));
+
+        assertEquals(10, report.getSucceeded());
+        assertEquals(10, onCaller.get());
+    }
+
+    @Test
+    void builder_invalidArguments_throwsException() {
+        BatchExportRunner.Builder builder = BatchExportRunner.builder();
+
+        assertThrows(IllegalArgumentException.class, () -> builder.parallelism(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.queueCapacity(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.executor(null));
+        assertThrows(IllegalArgumentException.class, () -> BatchExportJob.of(null, tempDir));
+    }
+
+    private static CsvMaker customerCsv(int customerId) {
+        return CsvMaker.builder("customer.csv")
+                .row(List.of("customer"))
+                .row(List.of(String.valueOf(customerId)))
+                .lineSeparator("\n")
+                .build();
+    }
+}